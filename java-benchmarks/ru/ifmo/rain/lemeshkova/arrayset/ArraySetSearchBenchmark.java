@@ -0,0 +1,81 @@
+package ru.ifmo.rain.lemeshkova.arrayset;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Point queries of ArraySet answered by binary search over the sorted list
+ * and by the Eytzinger layout index. The set holds even numbers,
+ * so about half of the random keys are missing.
+ * 100M boxed elements need a large heap, hence -Xmx for the forked JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class ArraySetSearchBenchmark {
+    private static final int KEYS = 1 << 16;
+
+    @Param({"1000", "1000000", "100000000"})
+    public int size;
+
+    private ArraySet<Integer> binary;
+    private ArraySet<Integer> eytzinger;
+    private Integer[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createSets() {
+        List<Integer> elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            elements.add(2 * i);
+        }
+        binary = new ArraySet<>(elements);
+        eytzinger = binary.withSearchIndex();
+        Random random = new Random(2020);
+        keys = new Integer[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = random.nextInt(2 * size);
+        }
+    }
+
+    private Integer nextKey() {
+        return keys[next++ & (KEYS - 1)];
+    }
+
+    @Benchmark
+    public boolean containsBinary() {
+        return binary.contains(nextKey());
+    }
+
+    @Benchmark
+    public boolean containsEytzinger() {
+        return eytzinger.contains(nextKey());
+    }
+
+    @Benchmark
+    public Integer floorBinary() {
+        return binary.floor(nextKey());
+    }
+
+    @Benchmark
+    public Integer floorEytzinger() {
+        return eytzinger.floor(nextKey());
+    }
+
+    @Benchmark
+    public Integer higherBinary() {
+        return binary.higher(nextKey());
+    }
+
+    @Benchmark
+    public Integer higherEytzinger() {
+        return eytzinger.higher(nextKey());
+    }
+}
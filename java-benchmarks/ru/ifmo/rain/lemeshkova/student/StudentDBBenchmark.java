@@ -0,0 +1,87 @@
+package ru.ifmo.rain.lemeshkova.student;
+
+import info.kgeorgiy.java.advanced.student.Group;
+import info.kgeorgiy.java.advanced.student.Student;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Sequential StudentDB against the parallel mode on generated students.
+ * Names and groups repeat as in real data: 1000 first names, 5000 last names, size / 25 groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class StudentDBBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    @Param({"8"})
+    public int parallelism;
+
+    @Param({"10000"})
+    public int parallelThreshold;
+
+    private ForkJoinPool pool;
+    private StudentDB db;
+    private List<Student> students;
+
+    @Setup(Level.Trial)
+    public void createStudents() {
+        Random random = new Random(2020);
+        int groups = Math.max(1, size / 25);
+        students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(new Student(random.nextInt(size), "First" + random.nextInt(1000),
+                    "Last" + random.nextInt(5000), "M3" + random.nextInt(groups)));
+        }
+        pool = new ForkJoinPool(parallelism);
+        db = parallel ? new StudentDB(pool, parallelThreshold) : new StudentDB();
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public String largestGroup() {
+        return db.getLargestGroup(students);
+    }
+
+    @Benchmark
+    public String largestGroupFirstName() {
+        return db.getLargestGroupFirstName(students);
+    }
+
+    @Benchmark
+    public String mostPopularName() {
+        return db.getMostPopularName(students);
+    }
+
+    @Benchmark
+    public List<Student> sortByName() {
+        return db.sortStudentsByName(students);
+    }
+
+    @Benchmark
+    public List<Group> groupsByName() {
+        return db.getGroupsByName(students);
+    }
+
+    @Benchmark
+    public List<Student> findByLastName() {
+        return db.findStudentsByLastName(students, "Last42");
+    }
+}
@@ -0,0 +1,90 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+
+/*
+ * Generators of file trees used by benchmarks. Contents are pseudo-random with a fixed seed,
+ * so the same shape always produces the same tree.
+ */
+enum SyntheticTree {
+    TINY {
+        @Override
+        void generate(Path root, Random random, long hugeFileSize) throws IOException {
+            for (int directory = 0; directory < 100; directory++) {
+                Path dir = Files.createDirectories(root.resolve("d" + directory));
+                for (int file = 0; file < 200; file++) {
+                    writeFile(dir.resolve("f" + file), random.nextInt(512), random);
+                }
+            }
+        }
+    },
+    HUGE {
+        @Override
+        void generate(Path root, Random random, long hugeFileSize) throws IOException {
+            for (int file = 0; file < 3; file++) {
+                writeFile(root.resolve("huge" + file), hugeFileSize, random);
+            }
+        }
+    },
+    WIDE {
+        @Override
+        void generate(Path root, Random random, long hugeFileSize) throws IOException {
+            for (int directory = 0; directory < 2000; directory++) {
+                Path dir = Files.createDirectories(root.resolve("d" + directory).resolve("nested"));
+                for (int file = 0; file < 4; file++) {
+                    writeFile(dir.resolve("f" + file), random.nextInt(1024), random);
+                }
+            }
+        }
+    },
+    DEEP {
+        @Override
+        void generate(Path root, Random random, long hugeFileSize) throws IOException {
+            Path dir = root;
+            for (int depth = 0; depth < 64; depth++) {
+                dir = Files.createDirectories(dir.resolve("level" + depth));
+                for (int file = 0; file < 8; file++) {
+                    writeFile(dir.resolve("f" + file), 4 << 10, random);
+                }
+            }
+        }
+    };
+
+    abstract void generate(Path root, Random random, long hugeFileSize) throws IOException;
+
+    Path create(long hugeFileSize) throws IOException {
+        Path root = Files.createTempDirectory("walk-benchmark-" + name().toLowerCase());
+        generate(root, new Random(8743215), hugeFileSize);
+        return root;
+    }
+
+    static void delete(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void writeFile(Path file, long size, Random random) throws IOException {
+        byte[] block = new byte[64 << 10];
+        try (OutputStream output = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += block.length) {
+                random.nextBytes(block);
+                output.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Hashing throughput and traversal speed of RecursiveWalk over generated trees.
+ * Besides the time per walk, every benchmark reports "files" and "bytes" counters,
+ * which JMH shows as files/s and bytes/s. File sizes for the "bytes" counter are read once
+ * in setup, so counting does not add a stat call to the measured loops.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WalkBenchmark {
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    @Param({"TINY", "HUGE", "WIDE", "DEEP"})
+    public SyntheticTree shape;
+
+    @Param({"268435456"})
+    public long hugeFileSize;
+
+    @Param({"8"})
+    public int forkJoinParallelism;
+
+    private Path root;
+    private List<Path> files;
+    private Map<Path, Long> sizes;
+
+    @Setup(Level.Trial)
+    public void createTree() throws IOException {
+        root = shape.create(hugeFileSize);
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        sizes = new HashMap<>();
+        for (Path file : files) {
+            sizes.put(file, Files.size(file));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTree() throws IOException {
+        SyntheticTree.delete(root);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long files;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            files = 0;
+            bytes = 0;
+        }
+
+        void count(long size) {
+            files++;
+            bytes += size;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Readers {
+        final HashReader heap = new HashReader(HashAlgorithm.FNV32, UNLIMITED, UNLIMITED);
+        final HashReader direct = new HashReader(HashAlgorithm.FNV32, 0, UNLIMITED);
+        final HashReader mapped = new HashReader(HashAlgorithm.FNV32, 0, 0);
+    }
+
+    @Benchmark
+    public void getHashFile(Counters counters, Blackhole blackhole) throws IOException {
+        for (Path file : files) {
+            blackhole.consume(RecursiveWalk.getHashFile(file));
+            counters.count(sizes.get(file));
+        }
+    }
+
+    @Benchmark
+    public void streamReadHash(Counters counters, Blackhole blackhole) throws IOException {
+        for (Path file : files) {
+            blackhole.consume(streamHash(file));
+            counters.count(sizes.get(file));
+        }
+    }
+
+    @Benchmark
+    public void heapReadHash(Readers readers, Counters counters, Blackhole blackhole) throws IOException {
+        hashAll(readers.heap, counters, blackhole);
+    }
+
+    @Benchmark
+    public void directReadHash(Readers readers, Counters counters, Blackhole blackhole) throws IOException {
+        hashAll(readers.direct, counters, blackhole);
+    }
+
+    @Benchmark
+    public void mappedReadHash(Readers readers, Counters counters, Blackhole blackhole) throws IOException {
+        hashAll(readers.mapped, counters, blackhole);
+    }
+
+    @Benchmark
+    public void depthFirstTraversal(Counters counters, Blackhole blackhole) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                blackhole.consume(file);
+                counters.files++;
+            }
+        }
+    }
+
+    @Benchmark
+    public void fileTreeTraversal(Counters counters, Blackhole blackhole) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    blackhole.consume(file);
+                    counters.files++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Benchmark
+    public void forkJoinTraversal(Counters counters, Blackhole blackhole) throws IOException {
+        try (FileTreeWalker walker = new ForkJoinTreeWalker(forkJoinParallelism)) {
+            walker.walk(root, (file, attributes) -> {
+                blackhole.consume(file);
+                counters.files++;
+            });
+        }
+    }
+
+    @Benchmark
+    public void breadthFirstTraversal(Counters counters, Blackhole blackhole) throws IOException {
+        Queue<Path> directories = new ArrayDeque<>();
+        directories.add(root);
+        while (!directories.isEmpty()) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directories.poll())) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                    if (attributes.isDirectory()) {
+                        directories.add(entry);
+                    } else if (attributes.isRegularFile()) {
+                        blackhole.consume(entry);
+                        counters.files++;
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void walkAndHash(Counters counters, Blackhole blackhole) throws IOException {
+        List<Path> walked = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(Files::isRegularFile).forEach(walked::add);
+        }
+        for (Path file : walked) {
+            blackhole.consume(RecursiveWalk.getHashFile(file));
+            counters.count(sizes.get(file));
+        }
+    }
+
+    private void hashAll(HashReader reader, Counters counters, Blackhole blackhole) throws IOException {
+        for (Path file : files) {
+            blackhole.consume(RecursiveWalk.getHashFile(file, reader));
+            counters.count(sizes.get(file));
+        }
+    }
+
+    // Read path used before the NIO strategies, kept as the baseline
+    private static String streamHash(Path file) throws IOException {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file))) {
+            byte[] buffer = new byte[2 << 10];
+            int h = 0x811c9dc5;
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    h = (h * 0x01000193) ^ (buffer[i] & 0xff);
+                }
+            }
+            return String.format("%08x", h);
+        }
+    }
+}
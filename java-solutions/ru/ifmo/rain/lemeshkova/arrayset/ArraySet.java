@@ -1,27 +1,43 @@
 package ru.ifmo.rain.lemeshkova.arrayset;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
+    private static final int GALLOP_RATIO = 32;
 
     private ArraySet<T> descendingSet = null;
     private final Comparator<? super T> comparator;
-    private final List<T> list;
+    private final Comparator<? super T> rootComparator;
+    private final List<T> root;
+    private final int from;
+    private final int to;
+    private final boolean reversed;
+    private final SearchIndex<T> searchIndex;
 
     private ArraySet(List<T> list, Comparator<? super T> comparator) {
+        this(list, comparator, null);
+    }
+
+    /* Trusted root: list must be RandomAccess, sorted by comparator and without duplicates */
+    ArraySet(List<T> list, Comparator<? super T> comparator, SearchIndex<T> searchIndex) {
+        this(list, comparator, comparator, 0, list.size(), false, searchIndex);
+    }
+
+    /* View of root elements [from, to), in reverse order if reversed. Root is a RandomAccess list sorted by rootComparator */
+    private ArraySet(List<T> root, Comparator<? super T> rootComparator, Comparator<? super T> comparator,
+                     int from, int to, boolean reversed, SearchIndex<T> searchIndex) {
         this.comparator = comparator;
-        this.list = list;
+        this.rootComparator = rootComparator;
+        this.root = root;
+        this.from = from;
+        this.to = to;
+        this.reversed = reversed;
+        this.searchIndex = searchIndex;
     }
 
     public ArraySet(Collection<? extends T> collection, Comparator<? super T> comparator) {
-        this.comparator = comparator;
-        if (isSorted(collection)) {
-            list = List.copyOf(collection);
-        } else {
-            SortedSet<T> sortedSet = new TreeSet<>(comparator);
-            sortedSet.addAll(collection);
-            list = List.copyOf(sortedSet);
-        }
+        this(toSortedList(collection, comparator), comparator);
     }
 
     public ArraySet(Collection<? extends T> collection) {
@@ -32,6 +48,248 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
         this(Collections.emptyList());
     }
 
+    /* Set over a RandomAccess list already sorted by comparator without duplicates, the list is neither copied nor checked */
+    static <T> ArraySet<T> ofSortedList(List<T> sorted, Comparator<? super T> comparator) {
+        return new ArraySet<>(sorted, comparator);
+    }
+
+    /* Sorts elements in place, parallel sort splits big arrays between the common pool threads */
+    public static <T> ArraySet<T> ofArray(T[] elements, Comparator<? super T> comparator, boolean parallel) {
+        int size = sortUnique(elements, comparator, parallel);
+        return new ArraySet<>(wrap(Arrays.copyOf(elements, size), size), comparator);
+    }
+
+    /* Merges sets sorted by the same comparator with a heap of their iterators, equal elements are kept once */
+    public static <T> ArraySet<T> merge(Collection<? extends SortedSet<? extends T>> sets,
+                                        Comparator<? super T> comparator) {
+        int total = 0;
+        for (SortedSet<? extends T> set : sets) {
+            if (!Objects.equals(set.comparator(), comparator)) {
+                throw new IllegalArgumentException("Set " + set + " is sorted by another comparator");
+            }
+            total += set.size();
+        }
+        Comparator<? super T> order = naturalIfNull(comparator);
+        PriorityQueue<MergeCursor<T>> heads = new PriorityQueue<>(Math.max(1, sets.size()),
+                (c1, c2) -> order.compare(c1.head, c2.head));
+        for (SortedSet<? extends T> set : sets) {
+            MergeCursor<T> cursor = new MergeCursor<>(set.iterator());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        @SuppressWarnings("unchecked")
+        T[] array = (T[]) new Object[total];
+        int size = 0;
+        while (!heads.isEmpty()) {
+            MergeCursor<T> cursor = heads.poll();
+            if (size == 0 || order.compare(array[size - 1], cursor.head) != 0) {
+                array[size++] = cursor.head;
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return new ArraySet<>(wrap(array, size), comparator);
+    }
+
+    /*
+     * Set algebra over sets with the same order. Sets of similar size are merged linearly,
+     * when one is GALLOP_RATIO times smaller, each of its elements is found in the other by galloping search.
+     * Equal elements are taken from this set.
+     */
+    public ArraySet<T> union(ArraySet<T> other) {
+        checkComparator(other);
+        T[] result = newArray(size() + other.size());
+        int size = 0;
+        if (skewed(this, other)) {
+            boolean thisSmaller = size() < other.size();
+            ArraySet<T> small = thisSmaller ? this : other;
+            ArraySet<T> large = thisSmaller ? other : this;
+            int j = 0;
+            for (T t : small) {
+                int k = gallop(large, j, t);
+                size = copy(large, j, k, result, size);
+                if (k < large.size() && compare(large.get(k), t) == 0) {
+                    result[size++] = thisSmaller ? t : large.get(k);
+                    k++;
+                } else {
+                    result[size++] = t;
+                }
+                j = k;
+            }
+            size = copy(large, j, large.size(), result, size);
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < size() && j < other.size()) {
+                int cmp = compare(get(i), other.get(j));
+                if (cmp <= 0) {
+                    result[size++] = get(i++);
+                    if (cmp == 0) j++;
+                } else {
+                    result[size++] = other.get(j++);
+                }
+            }
+            size = copy(this, i, size(), result, size);
+            size = copy(other, j, other.size(), result, size);
+        }
+        return new ArraySet<>(wrap(result, size), comparator);
+    }
+
+    public ArraySet<T> intersect(ArraySet<T> other) {
+        checkComparator(other);
+        T[] result = newArray(Math.min(size(), other.size()));
+        return new ArraySet<>(wrap(result, intersection(other, result)), comparator);
+    }
+
+    public int intersectionSize(ArraySet<T> other) {
+        checkComparator(other);
+        return intersection(other, null);
+    }
+
+    /* Elements of this set which are not in other */
+    public ArraySet<T> difference(ArraySet<T> other) {
+        checkComparator(other);
+        T[] result = newArray(size());
+        int size = 0;
+        if (skewed(this, other) && size() < other.size()) {
+            int j = 0;
+            for (T t : this) {
+                j = gallop(other, j, t);
+                if (j == other.size() || compare(other.get(j), t) != 0) {
+                    result[size++] = t;
+                }
+            }
+        } else if (skewed(this, other)) {
+            int i = 0;
+            for (T t : other) {
+                int k = gallop(this, i, t);
+                size = copy(this, i, k, result, size);
+                if (k < size() && compare(get(k), t) == 0) k++;
+                i = k;
+            }
+            size = copy(this, i, size(), result, size);
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < size() && j < other.size()) {
+                int cmp = compare(get(i), other.get(j));
+                if (cmp < 0) {
+                    result[size++] = get(i++);
+                } else {
+                    if (cmp == 0) i++;
+                    j++;
+                }
+            }
+            size = copy(this, i, size(), result, size);
+        }
+        return new ArraySet<>(wrap(result, size), comparator);
+    }
+
+    /* Counts common elements, stores them to result if it is not null */
+    private int intersection(ArraySet<T> other, T[] result) {
+        int size = 0;
+        if (skewed(this, other)) {
+            boolean thisSmaller = size() < other.size();
+            ArraySet<T> small = thisSmaller ? this : other;
+            ArraySet<T> large = thisSmaller ? other : this;
+            int j = 0;
+            for (T t : small) {
+                j = gallop(large, j, t);
+                if (j == large.size()) break;
+                if (compare(large.get(j), t) == 0) {
+                    if (result != null) {
+                        result[size] = thisSmaller ? t : large.get(j);
+                    }
+                    size++;
+                    j++;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < size() && j < other.size()) {
+                int cmp = compare(get(i), other.get(j));
+                if (cmp == 0) {
+                    if (result != null) {
+                        result[size] = get(i);
+                    }
+                    size++;
+                }
+                if (cmp <= 0) i++;
+                if (cmp >= 0) j++;
+            }
+        }
+        return size;
+    }
+
+    /* First index from the given one with element not less than key */
+    private int gallop(ArraySet<T> sorted, int from, T key) {
+        int low = from;
+        int high = from;
+        long step = 1;
+        while (high < sorted.size() && compare(sorted.get(high), key) < 0) {
+            low = high + 1;
+            high = (int) Math.min(sorted.size(), from + step);
+            step *= 2;
+        }
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(sorted.get(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean skewed(ArraySet<?> a, ArraySet<?> b) {
+        return (long) Math.min(a.size(), b.size()) * GALLOP_RATIO < Math.max(a.size(), b.size());
+    }
+
+    private static <T> int copy(ArraySet<T> from, int begin, int end, T[] to, int size) {
+        for (int i = begin; i < end; i++) {
+            to[size++] = from.get(i);
+        }
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newArray(int size) {
+        return (T[]) new Object[size];
+    }
+
+    private void checkComparator(ArraySet<T> other) {
+        if (!naturalIfNull(comparator).equals(naturalIfNull(other.comparator))) {
+            throw new IllegalArgumentException("Sets are sorted by different comparators");
+        }
+    }
+
+    private static class MergeCursor<T> {
+        private final Iterator<? extends T> iterator;
+        private T head;
+
+        MergeCursor(Iterator<? extends T> iterator) {
+            this.iterator = iterator;
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext()) return false;
+            head = iterator.next();
+            return true;
+        }
+    }
+
+    /* Copy of this set answering searches through an Eytzinger layout index of the root, shared with its views.
+     * Sets which already have a search index are returned as is */
+    public ArraySet<T> withSearchIndex() {
+        if (searchIndex != null) return this;
+        return new ArraySet<>(root, rootComparator, comparator, from, to, reversed,
+                new EytzingerIndex<>(root, rootComparator));
+    }
+
     @Override
     public T lower(T t) {
         return getValue(getIndex(t, true, true));
@@ -55,18 +313,17 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
     @Override
     public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
         if (compare(fromElement, toElement) > 0) throw new IllegalArgumentException();
-        return new ArraySet<>(getSubList(getIndex(fromElement, false, !fromInclusive),
-                getIndex(toElement, true, !toInclusive) + 1), comparator);
+        return getSubSet(getIndex(fromElement, false, !fromInclusive), getIndex(toElement, true, !toInclusive) + 1);
     }
 
     @Override
     public NavigableSet<T> headSet(T toElement, boolean toInclusive) {
-        return new ArraySet<>(getSubList(0, getIndex(toElement, true, !toInclusive) + 1), comparator);
+        return getSubSet(0, getIndex(toElement, true, !toInclusive) + 1);
     }
 
     @Override
     public NavigableSet<T> tailSet(T fromElement, boolean toInclusive) {
-        return new ArraySet<>(getSubList(getIndex(fromElement, false, !toInclusive), size()), comparator);
+        return getSubSet(getIndex(fromElement, false, !toInclusive), size());
     }
 
     @Override
@@ -86,7 +343,7 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
 
     @Override
     public int size() {
-        return list.size();
+        return to - from;
     }
 
     @Override
@@ -96,37 +353,95 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
 
     @Override
     public Iterator<T> iterator() {
-        return list.iterator();
+        return new Iterator<>() {
+            private final ListIterator<T> cursor = listIterator(0);
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                index++;
+                return step(cursor);
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new IndexSpliterator<>(this, 0, size());
+    }
+
+    public int countInRange(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+        if (compare(fromElement, toElement) > 0) throw new IllegalArgumentException();
+        return Math.max(0, getIndex(toElement, true, !toInclusive) + 1 - getIndex(fromElement, false, !fromInclusive));
+    }
+
+    /* Number of elements less than the given one */
+    public int rank(T element) {
+        return getIndex(element, false, false);
+    }
+
+    /* Element with the given rank, inverse of rank for elements of the set */
+    public T elementAt(int rank) {
+        Objects.checkIndex(rank, size());
+        return get(rank);
     }
 
     @Override
     public T first() {
         if (isEmpty()) throw new NoSuchElementException("ArraySet is empty");
-        return list.get(0);
+        return get(0);
     }
 
     @Override
     public T last() {
         if (isEmpty()) throw new NoSuchElementException("ArraySet is empty");
-        return list.get(size() - 1);
+        return get(size() - 1);
     }
 
     @Override
     public NavigableSet<T> descendingSet() {
         if (descendingSet == null) {
-            descendingSet = new ArraySet<>(new ReversedList<>(list), Collections.reverseOrder(comparator));
+            descendingSet = new ArraySet<>(root, rootComparator,
+                    reversed ? rootComparator : Collections.reverseOrder(rootComparator), from, to, !reversed, searchIndex);
+            descendingSet.descendingSet = this;
         }
         return descendingSet;
     }
 
-    private int getIndex(T t) {
-        return Collections.binarySearch(list, t, comparator);
+    /* First root index in [from, to) with element greater than t (not less if not strictly), to if there is none */
+    private int getRootBound(T t, boolean strictly) {
+        if (t == null) throw new NullPointerException();
+        if (searchIndex != null) {
+            int index = searchIndex.search(t);
+            int bound = index < 0 ? -index - 1 : strictly ? index + 1 : index;
+            return Math.min(Math.max(bound, from), to);
+        }
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compareInRoot(root.get(middle), t);
+            if (cmp < 0 || strictly && cmp == 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public boolean contains(Object o) {
-        return getIndex((T) o) >= 0;
+        T t = (T) o;
+        int index = getRootBound(t, false);
+        return index < to && compareInRoot(root.get(index), t) == 0;
     }
 
     @Override
@@ -134,37 +449,67 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
         return descendingSet().iterator();
     }
 
-    private static class ReversedList<T> extends AbstractList<T> {
+    /* Splits the range of indices in halves, traverses the root with its list iterator */
+    private static class IndexSpliterator<T> implements Spliterator<T> {
+        private static final int CHARACTERISTICS = ORDERED | DISTINCT | SORTED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
 
-        private final List<T> reversedList;
+        private final ArraySet<T> set;
+        private int index;
+        private final int fence;
+        private ListIterator<T> cursor;
 
-        private boolean reversed;
+        IndexSpliterator(ArraySet<T> set, int index, int fence) {
+            this.set = set;
+            this.index = index;
+            this.fence = fence;
+        }
 
-        ReversedList(List<T> otherList) {
-            if (otherList.getClass() == ReversedList.class) {
-                ReversedList<T> els = (ReversedList<T>) otherList;
-                this.reversedList = els.reversedList;
-                this.reversed = !els.reversed;
-            } else {
-                this.reversedList = otherList;
-                this.reversed = true;
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= fence) return false;
+            if (cursor == null) {
+                cursor = set.listIterator(index);
             }
+            index++;
+            action.accept(set.step(cursor));
+            return true;
         }
 
         @Override
-        public T get(int index) {
-            if (reversed) {
-                return reversedList.get(size() - index - 1);
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (index >= fence) return;
+            if (cursor == null) {
+                cursor = set.listIterator(index);
+            }
+            for (; index < fence; index++) {
+                action.accept(set.step(cursor));
             }
-            return reversedList.get(index);
         }
 
         @Override
-        public int size() {
-            return reversedList.size();
+        public Spliterator<T> trySplit() {
+            int middle = (index + fence) >>> 1;
+            if (middle <= index) return null;
+            Spliterator<T> prefix = new IndexSpliterator<>(set, index, middle);
+            index = middle;
+            cursor = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
         }
 
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
 
+        @Override
+        public Comparator<? super T> getComparator() {
+            return set.comparator;
+        }
     }
 
     /*Unsupperted Operations*/
@@ -184,26 +529,29 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
         throw new UnsupportedOperationException();
     }
 
+    /* Index in this set of the lower (less and strictly), floor, ceiling or higher element, -1 or size() if none */
     private int getIndex(T t, boolean less, boolean strictly) {
-        if (less && strictly) return getIndex(t, -1, -1);
-        if (less) return getIndex(t, 0, -1);
-        if (strictly) return getIndex(t, 1, 0);
-        return getIndex(t, 0, 0);
+        if (reversed) {
+            return to - 1 - (less ? getRootBound(t, strictly) : getRootBound(t, !strictly) - 1);
+        }
+        return (less ? getRootBound(t, !strictly) - 1 : getRootBound(t, strictly)) - from;
     }
 
-    private int getIndex(T t, int foundAdd, int notFoundAdd) {
-        if (t == null) throw new NullPointerException();
-        int index = getIndex(t);
-        if (index < 0) {
-            index = -index - 1 + notFoundAdd;
-        } else {
-            index += foundAdd;
-        }
-        return index;
+    private T get(int index) {
+        return reversed ? root.get(to - 1 - index) : root.get(from + index);
+    }
+
+    /* Root list iterator positioned before the element with the given index in this set */
+    private ListIterator<T> listIterator(int index) {
+        return root.listIterator(reversed ? to - index : from + index);
+    }
+
+    private T step(ListIterator<T> cursor) {
+        return reversed ? cursor.previous() : cursor.next();
     }
 
     private T getValue(int index) {
-        if (inRange(index)) return list.get(index);
+        if (inRange(index)) return get(index);
         return null;
     }
 
@@ -211,9 +559,16 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
         return (index >= 0 && index < size());
     }
 
-    private List<T> getSubList(int begin, int end) {//begin include, end exclude
-        if (begin >= end || begin == -1 || end == -1) return List.of();
-        return list.subList(begin, end);
+    private ArraySet<T> getSubSet(int begin, int end) {//begin include, end exclude
+        end = Math.max(begin, end);
+        int subFrom = reversed ? to - end : from + begin;
+        int subTo = reversed ? to - begin : from + end;
+        return new ArraySet<>(root, rootComparator, comparator, subFrom, subTo, reversed, searchIndex);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compareInRoot(T e1, T e2) {
+        return rootComparator == null ? ((Comparable<? super T>) e1).compareTo(e2) : rootComparator.compare(e1, e2);
     }
 
     @SuppressWarnings("unchecked")
@@ -221,17 +576,53 @@ public class ArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
         return comparator == null ? ((Comparable<? super T>) e1).compareTo(e2) : comparator.compare(e1, e2);
     }
 
-    private boolean isSorted(Collection<? extends T> collection) {
+    private static <T> int sortUnique(T[] array, Comparator<? super T> comparator, boolean parallel) {
+        Comparator<? super T> order = naturalIfNull(comparator);
+        if (parallel) {
+            Arrays.parallelSort(array, order);
+        } else {
+            Arrays.sort(array, order);
+        }
+        int size = 0;
+        for (T element : array) {
+            Objects.requireNonNull(element);
+            if (size == 0 || order.compare(array[size - 1], element) != 0) {
+                array[size++] = element;
+            }
+        }
+        return size;
+    }
+
+    private static <T> List<T> wrap(T[] array, int size) {
+        return Collections.unmodifiableList(Arrays.asList(size == array.length ? array : Arrays.copyOf(array, size)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Comparator<? super T> naturalIfNull(Comparator<? super T> comparator) {
+        return comparator == null ? (Comparator<? super T>) Comparator.naturalOrder() : comparator;
+    }
+
+    private static <T> List<T> toSortedList(Collection<? extends T> collection, Comparator<? super T> comparator) {
+        if (isSorted(collection, comparator)) {
+            return List.copyOf(collection);
+        }
+        @SuppressWarnings("unchecked")
+        T[] array = (T[]) collection.toArray();
+        return wrap(array, sortUnique(array, comparator, false));
+    }
+
+    private static <T> boolean isSorted(Collection<? extends T> collection, Comparator<? super T> comparator) {
+        Comparator<? super T> order = naturalIfNull(comparator);
         Iterator<? extends T> iterator = collection.iterator();
         if (iterator.hasNext()) {
             T previous;
             previous = iterator.next();
             while (iterator.hasNext()) {
                 T current = iterator.next();
-                if (compare(previous, current) >= 0) return false;
+                if (order.compare(previous, current) >= 0) return false;
                 previous = current;
             }
         }
         return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,200 @@
+package ru.ifmo.rain.lemeshkova.arrayset;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/*
+ * Compact binary form of ArraySet of Integer, Long or String elements.
+ *
+ * Layout: magic, version, order, element type, varint element count, then elements in set order.
+ * Numbers are written as zigzag varint deltas from the previous element, strings are front-coded:
+ * varint length of the prefix shared with the previous string, varint length of the UTF-8 suffix, suffix bytes.
+ * Only orders which can be restored by identity are supported: natural, reverse and case-insensitive.
+ * The reader trusts the stored order and builds the set without sorting or checking it.
+ * Counts and lengths are not trusted: buffers grow only as elements are actually read,
+ * and malformed input is reported as StreamCorruptedException.
+ */
+public class ArraySetFormat {
+    private static final int MAGIC = 0x41534631;
+    private static final int VERSION = 1;
+
+    private static final int NATURAL = 0;
+    private static final int REVERSE = 1;
+    private static final int CASE_INSENSITIVE = 2;
+
+    private static final int EMPTY = 0;
+    private static final int INTS = 1;
+    private static final int LONGS = 2;
+    private static final int STRINGS = 3;
+
+    private static final int MAX_COUNT = Integer.MAX_VALUE - 8;
+    private static final int MAX_STRING_BYTES = 1 << 24;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private ArraySetFormat() {
+    }
+
+    public static void write(ArraySet<?> set, DataOutput output) throws IOException {
+        int type = set.isEmpty() ? EMPTY : typeOf(set.first());
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeByte(orderOf(set.comparator()));
+        output.writeByte(type);
+        writeVarint(output, set.size());
+        long previous = 0;
+        String previousString = "";
+        for (Object element : set) {
+            if (typeOf(element) != type) {
+                throw new IllegalArgumentException("Elements of different types: " + set.first() + " and " + element);
+            }
+            if (type == STRINGS) {
+                String string = (String) element;
+                int shared = sharedPrefix(previousString, string);
+                byte[] suffix = string.substring(shared).getBytes(StandardCharsets.UTF_8);
+                if (suffix.length > MAX_STRING_BYTES) {
+                    throw new IllegalArgumentException("String of " + suffix.length + " bytes is too long");
+                }
+                writeVarint(output, shared);
+                writeVarint(output, suffix.length);
+                output.write(suffix);
+                previousString = string;
+            } else {
+                long value = ((Number) element).longValue();
+                long delta = value - previous;
+                writeVarint(output, (delta << 1) ^ (delta >> 63));
+                previous = value;
+            }
+        }
+    }
+
+    /* Reads exactly one set from input, the rest of the input is left untouched */
+    public static <T> ArraySet<T> read(DataInput input, Class<T> elementType) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new StreamCorruptedException("Not an ArraySet stream");
+        }
+        int version = input.readUnsignedByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported ArraySet format version " + version);
+        }
+        Comparator<?> comparator = comparatorOf(input.readUnsignedByte());
+        int type = input.readUnsignedByte();
+        long count = readVarint(input);
+        if (count < 0 || count > MAX_COUNT) {
+            throw new StreamCorruptedException("Invalid element count: " + count);
+        }
+        if (type == EMPTY ? count != 0 : elementType != classOf(type)) {
+            throw new StreamCorruptedException(type == EMPTY ? "Elements in a stream of an empty set"
+                    : "Stream holds " + classOf(type).getSimpleName() + " elements, not " + elementType.getSimpleName());
+        }
+        Object[] elements = new Object[(int) Math.min(count, INITIAL_CAPACITY)];
+        long previous = 0;
+        String previousString = "";
+        for (int i = 0; i < count; i++) {
+            if (i == elements.length) {
+                elements = Arrays.copyOf(elements, (int) Math.min(count, 2L * elements.length));
+            }
+            if (type == STRINGS) {
+                long shared = readVarint(input);
+                if (shared < 0 || shared > previousString.length()) {
+                    throw new StreamCorruptedException("Shared prefix " + shared + " is longer than previous element");
+                }
+                long length = readVarint(input);
+                if (length < 0 || length > MAX_STRING_BYTES) {
+                    throw new StreamCorruptedException("Invalid string length: " + length);
+                }
+                byte[] suffix = new byte[(int) length];
+                input.readFully(suffix);
+                previousString = previousString.substring(0, (int) shared) + new String(suffix, StandardCharsets.UTF_8);
+                elements[i] = previousString;
+            } else {
+                long zigzag = readVarint(input);
+                previous += (zigzag >>> 1) ^ -(zigzag & 1);
+                if (type == INTS && (int) previous != previous) {
+                    throw new StreamCorruptedException("Element out of int range: " + previous);
+                }
+                elements[i] = type == INTS ? (Object) (int) previous : (Object) previous;
+            }
+        }
+        @SuppressWarnings("unchecked")
+        List<T> list = (List<T>) Collections.unmodifiableList(Arrays.asList(elements));
+        @SuppressWarnings("unchecked")
+        Comparator<? super T> order = (Comparator<? super T>) comparator;
+        return ArraySet.ofSortedList(list, order);
+    }
+
+    private static int typeOf(Object element) {
+        if (element instanceof Integer) return INTS;
+        if (element instanceof Long) return LONGS;
+        if (element instanceof String) return STRINGS;
+        throw new IllegalArgumentException("Unsupported element type " + element.getClass().getName());
+    }
+
+    private static Class<?> classOf(int type) throws IOException {
+        switch (type) {
+            case INTS:
+                return Integer.class;
+            case LONGS:
+                return Long.class;
+            case STRINGS:
+                return String.class;
+            default:
+                throw new StreamCorruptedException("Unknown element type " + type);
+        }
+    }
+
+    private static int orderOf(Comparator<?> comparator) {
+        if (comparator == null || comparator.equals(Comparator.naturalOrder())) return NATURAL;
+        if (comparator.equals(Collections.reverseOrder())) return REVERSE;
+        if (comparator.equals(String.CASE_INSENSITIVE_ORDER)) return CASE_INSENSITIVE;
+        throw new IllegalArgumentException("Comparator " + comparator + " cannot be stored");
+    }
+
+    private static Comparator<?> comparatorOf(int order) throws IOException {
+        switch (order) {
+            case NATURAL:
+                return null;
+            case REVERSE:
+                return Collections.reverseOrder();
+            case CASE_INSENSITIVE:
+                return String.CASE_INSENSITIVE_ORDER;
+            default:
+                throw new StreamCorruptedException("Unknown order " + order);
+        }
+    }
+
+    private static int sharedPrefix(String previous, String current) {
+        int limit = Math.min(previous.length(), current.length());
+        int shared = 0;
+        while (shared < limit && previous.charAt(shared) == current.charAt(shared)) {
+            shared++;
+        }
+        if (shared > 0 && Character.isHighSurrogate(current.charAt(shared - 1))) {
+            shared--;
+        }
+        return shared;
+    }
+
+    private static void writeVarint(DataOutput output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    private static long readVarint(DataInput input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+}
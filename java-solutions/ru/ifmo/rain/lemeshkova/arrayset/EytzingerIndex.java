@@ -0,0 +1,56 @@
+package ru.ifmo.rain.lemeshkova.arrayset;
+
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Copy of a sorted list in Eytzinger (breadth-first) order: the children of node k are 2k and 2k + 1.
+ * The first levels of the search tree are stored together and stay in cache, every next
+ * comparison reads a node close to the previous one instead of jumping over the whole array.
+ */
+class EytzingerIndex<T> implements SearchIndex<T> {
+    private final Object[] nodes;
+    private final int[] ranks;
+    private final Comparator<? super T> comparator;
+
+    EytzingerIndex(List<T> sorted, Comparator<? super T> comparator) {
+        this.nodes = new Object[sorted.size() + 1];
+        this.ranks = new int[sorted.size() + 1];
+        this.comparator = comparator;
+        build(sorted, 0, 1);
+    }
+
+    @Override
+    public int search(T key) {
+        int n = nodes.length - 1;
+        int k = 1;
+        while (k <= n) {
+            k = 2 * k + (compare(node(k), key) < 0 ? 1 : 0);
+        }
+        k >>= Integer.numberOfTrailingZeros(~k) + 1;
+        if (k == 0) {
+            return -n - 1;
+        }
+        return compare(node(k), key) == 0 ? ranks[k] : -ranks[k] - 1;
+    }
+
+    private int build(List<T> sorted, int i, int k) {
+        if (k < nodes.length) {
+            i = build(sorted, i, 2 * k);
+            nodes[k] = sorted.get(i);
+            ranks[k] = i++;
+            i = build(sorted, i, 2 * k + 1);
+        }
+        return i;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T node(int k) {
+        return (T) nodes[k];
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(T e1, T e2) {
+        return comparator == null ? ((Comparable<? super T>) e1).compareTo(e2) : comparator.compare(e1, e2);
+    }
+}
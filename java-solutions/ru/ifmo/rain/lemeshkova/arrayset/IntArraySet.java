@@ -0,0 +1,245 @@
+package ru.ifmo.rain.lemeshkova.arrayset;
+
+import java.util.*;
+
+public class IntArraySet extends AbstractSet<Integer> implements NavigableSet<Integer> {
+
+    private final int[] elements;
+    private final PrimitiveArrayView view;
+    private IntArraySet descendingSet = null;
+
+    private IntArraySet(int[] elements, PrimitiveArrayView view) {
+        this.elements = elements;
+        this.view = view;
+    }
+
+    public IntArraySet(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        this.elements = size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+        this.view = new PrimitiveArrayView(0, size, false);
+    }
+
+    public IntArraySet(Collection<? extends Integer> collection) {
+        this(collection.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public IntArraySet() {
+        this(new int[0]);
+    }
+
+    /*Primitive operations*/
+
+    public boolean containsInt(int value) {
+        return search(value) >= 0;
+    }
+
+    public int firstInt() {
+        if (isEmpty()) throw new NoSuchElementException("IntArraySet is empty");
+        return elements[view.index(0)];
+    }
+
+    public int lastInt() {
+        if (isEmpty()) throw new NoSuchElementException("IntArraySet is empty");
+        return elements[view.index(size() - 1)];
+    }
+
+    public int lowerInt(int value) {
+        return getElement(view.lowerIndex(search(value)));
+    }
+
+    public int floorInt(int value) {
+        return getElement(view.floorIndex(search(value)));
+    }
+
+    public int ceilingInt(int value) {
+        return getElement(view.ceilingIndex(search(value)));
+    }
+
+    public int higherInt(int value) {
+        return getElement(view.higherIndex(search(value)));
+    }
+
+    public int countInRange(int fromElement, boolean fromInclusive, int toElement, boolean toInclusive) {
+        return subView(fromElement, fromInclusive, toElement, toInclusive).size();
+    }
+
+    public int headCount(int toElement, boolean inclusive) {
+        return view.headView(search(toElement), inclusive).size();
+    }
+
+    public int tailCount(int fromElement, boolean inclusive) {
+        return view.tailView(search(fromElement), inclusive).size();
+    }
+
+    public int[] toIntArray() {
+        int[] result = new int[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = elements[view.index(i)];
+        }
+        return result;
+    }
+
+    public PrimitiveIterator.OfInt intIterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return elements[view.index(i++)];
+            }
+        };
+    }
+
+    /*NavigableSet operations*/
+
+    @Override
+    public Integer lower(Integer t) {
+        return getValue(view.lowerIndex(search(t)));
+    }
+
+    @Override
+    public Integer floor(Integer t) {
+        return getValue(view.floorIndex(search(t)));
+    }
+
+    @Override
+    public Integer ceiling(Integer t) {
+        return getValue(view.ceilingIndex(search(t)));
+    }
+
+    @Override
+    public Integer higher(Integer t) {
+        return getValue(view.higherIndex(search(t)));
+    }
+
+    @Override
+    public NavigableSet<Integer> subSet(Integer fromElement, boolean fromInclusive, Integer toElement, boolean toInclusive) {
+        return new IntArraySet(elements, subView(fromElement, fromInclusive, toElement, toInclusive));
+    }
+
+    @Override
+    public NavigableSet<Integer> headSet(Integer toElement, boolean inclusive) {
+        return new IntArraySet(elements, view.headView(search(toElement), inclusive));
+    }
+
+    @Override
+    public NavigableSet<Integer> tailSet(Integer fromElement, boolean inclusive) {
+        return new IntArraySet(elements, view.tailView(search(fromElement), inclusive));
+    }
+
+    @Override
+    public SortedSet<Integer> subSet(Integer fromElement, Integer toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<Integer> headSet(Integer toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<Integer> tailSet(Integer fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public int size() {
+        return view.size();
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return view.reversed ? Collections.reverseOrder() : null;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return intIterator();
+    }
+
+    @Override
+    public Integer first() {
+        return firstInt();
+    }
+
+    @Override
+    public Integer last() {
+        return lastInt();
+    }
+
+    @Override
+    public NavigableSet<Integer> descendingSet() {
+        if (descendingSet == null) {
+            descendingSet = new IntArraySet(elements, view.descending());
+            descendingSet.descendingSet = this;
+        }
+        return descendingSet;
+    }
+
+    @Override
+    public Iterator<Integer> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return containsInt((Integer) o);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = view.from; i < view.to; i++) {
+            hash += Integer.hashCode(elements[i]);
+        }
+        return hash;
+    }
+
+    /*Unsupperted Operations*/
+
+    @Override
+    public Integer pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Integer pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    private int search(int value) {
+        return Arrays.binarySearch(elements, view.from, view.to, value);
+    }
+
+    private PrimitiveArrayView subView(int fromElement, boolean fromInclusive, int toElement, boolean toInclusive) {
+        if (view.compare(Integer.compare(fromElement, toElement)) > 0) throw new IllegalArgumentException();
+        return view.subView(search(fromElement), fromInclusive, search(toElement), toInclusive);
+    }
+
+    private int getElement(int index) {
+        if (!view.inRange(index)) throw new NoSuchElementException();
+        return elements[index];
+    }
+
+    private Integer getValue(int index) {
+        return view.inRange(index) ? elements[index] : null;
+    }
+}
@@ -0,0 +1,245 @@
+package ru.ifmo.rain.lemeshkova.arrayset;
+
+import java.util.*;
+
+public class LongArraySet extends AbstractSet<Long> implements NavigableSet<Long> {
+
+    private final long[] elements;
+    private final PrimitiveArrayView view;
+    private LongArraySet descendingSet = null;
+
+    private LongArraySet(long[] elements, PrimitiveArrayView view) {
+        this.elements = elements;
+        this.view = view;
+    }
+
+    public LongArraySet(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        this.elements = size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+        this.view = new PrimitiveArrayView(0, size, false);
+    }
+
+    public LongArraySet(Collection<? extends Long> collection) {
+        this(collection.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    public LongArraySet() {
+        this(new long[0]);
+    }
+
+    /*Primitive operations*/
+
+    public boolean containsLong(long value) {
+        return search(value) >= 0;
+    }
+
+    public long firstLong() {
+        if (isEmpty()) throw new NoSuchElementException("LongArraySet is empty");
+        return elements[view.index(0)];
+    }
+
+    public long lastLong() {
+        if (isEmpty()) throw new NoSuchElementException("LongArraySet is empty");
+        return elements[view.index(size() - 1)];
+    }
+
+    public long lowerLong(long value) {
+        return getElement(view.lowerIndex(search(value)));
+    }
+
+    public long floorLong(long value) {
+        return getElement(view.floorIndex(search(value)));
+    }
+
+    public long ceilingLong(long value) {
+        return getElement(view.ceilingIndex(search(value)));
+    }
+
+    public long higherLong(long value) {
+        return getElement(view.higherIndex(search(value)));
+    }
+
+    public int countInRange(long fromElement, boolean fromInclusive, long toElement, boolean toInclusive) {
+        return subView(fromElement, fromInclusive, toElement, toInclusive).size();
+    }
+
+    public int headCount(long toElement, boolean inclusive) {
+        return view.headView(search(toElement), inclusive).size();
+    }
+
+    public int tailCount(long fromElement, boolean inclusive) {
+        return view.tailView(search(fromElement), inclusive).size();
+    }
+
+    public long[] toLongArray() {
+        long[] result = new long[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = elements[view.index(i)];
+        }
+        return result;
+    }
+
+    public PrimitiveIterator.OfLong longIterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size();
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return elements[view.index(i++)];
+            }
+        };
+    }
+
+    /*NavigableSet operations*/
+
+    @Override
+    public Long lower(Long t) {
+        return getValue(view.lowerIndex(search(t)));
+    }
+
+    @Override
+    public Long floor(Long t) {
+        return getValue(view.floorIndex(search(t)));
+    }
+
+    @Override
+    public Long ceiling(Long t) {
+        return getValue(view.ceilingIndex(search(t)));
+    }
+
+    @Override
+    public Long higher(Long t) {
+        return getValue(view.higherIndex(search(t)));
+    }
+
+    @Override
+    public NavigableSet<Long> subSet(Long fromElement, boolean fromInclusive, Long toElement, boolean toInclusive) {
+        return new LongArraySet(elements, subView(fromElement, fromInclusive, toElement, toInclusive));
+    }
+
+    @Override
+    public NavigableSet<Long> headSet(Long toElement, boolean inclusive) {
+        return new LongArraySet(elements, view.headView(search(toElement), inclusive));
+    }
+
+    @Override
+    public NavigableSet<Long> tailSet(Long fromElement, boolean inclusive) {
+        return new LongArraySet(elements, view.tailView(search(fromElement), inclusive));
+    }
+
+    @Override
+    public SortedSet<Long> subSet(Long fromElement, Long toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<Long> headSet(Long toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<Long> tailSet(Long fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public int size() {
+        return view.size();
+    }
+
+    @Override
+    public Comparator<? super Long> comparator() {
+        return view.reversed ? Collections.reverseOrder() : null;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return longIterator();
+    }
+
+    @Override
+    public Long first() {
+        return firstLong();
+    }
+
+    @Override
+    public Long last() {
+        return lastLong();
+    }
+
+    @Override
+    public NavigableSet<Long> descendingSet() {
+        if (descendingSet == null) {
+            descendingSet = new LongArraySet(elements, view.descending());
+            descendingSet.descendingSet = this;
+        }
+        return descendingSet;
+    }
+
+    @Override
+    public Iterator<Long> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return containsLong((Long) o);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = view.from; i < view.to; i++) {
+            hash += Long.hashCode(elements[i]);
+        }
+        return hash;
+    }
+
+    /*Unsupperted Operations*/
+
+    @Override
+    public Long pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Long pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    private int search(long value) {
+        return Arrays.binarySearch(elements, view.from, view.to, value);
+    }
+
+    private PrimitiveArrayView subView(long fromElement, boolean fromInclusive, long toElement, boolean toInclusive) {
+        if (view.compare(Long.compare(fromElement, toElement)) > 0) throw new IllegalArgumentException();
+        return view.subView(search(fromElement), fromInclusive, search(toElement), toInclusive);
+    }
+
+    private long getElement(int index) {
+        if (!view.inRange(index)) throw new NoSuchElementException();
+        return elements[index];
+    }
+
+    private Long getValue(int index) {
+        return view.inRange(index) ? elements[index] : null;
+    }
+}
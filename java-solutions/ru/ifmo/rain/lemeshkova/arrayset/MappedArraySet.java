@@ -0,0 +1,173 @@
+package ru.ifmo.rain.lemeshkova.arrayset;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/*
+ * ArraySet reading its elements from a memory-mapped file written by MappedArraySet.Builder.
+ * Elements are decoded on access, searches and views work directly against the mapped region.
+ *
+ * File layout: magic, record width (or VARIABLE_WIDTH), record count, then for variable-width
+ * records an index of count + 1 data offsets, then record data. The file is limited to 2 GB.
+ */
+public class MappedArraySet<T> extends ArraySet<T> {
+
+    private static final int MAGIC = 0x4d415331;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+    public MappedArraySet(Path file, RecordCodec<T> codec, Comparator<? super T> comparator) throws IOException {
+        super(new RecordList<>(map(file), codec), comparator, null);
+    }
+
+    public MappedArraySet(Path file, RecordCodec<T> codec) throws IOException {
+        this(file, codec, null);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to be mapped: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static class RecordList<T> extends AbstractList<T> implements RandomAccess {
+        private final ByteBuffer buffer;
+        private final RecordCodec<T> codec;
+        private final int width;
+        private final int size;
+        private final int dataStart;
+
+        private RecordList(ByteBuffer buffer, RecordCodec<T> codec) throws IOException {
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a mapped ArraySet file");
+            }
+            this.buffer = buffer;
+            this.codec = codec;
+            this.width = buffer.getInt(Integer.BYTES);
+            this.size = buffer.getInt(2 * Integer.BYTES);
+            if (width != codec.width()) {
+                throw new IOException("Record width " + width + " does not match codec width " + codec.width());
+            }
+            if (size < 0) {
+                throw new IOException("Negative record count " + size);
+            }
+            if (width == RecordCodec.VARIABLE_WIDTH) {
+                this.dataStart = checkOffsets(buffer, size);
+            } else {
+                this.dataStart = HEADER_SIZE;
+                if (dataStart + (long) size * width > buffer.limit()) {
+                    throw new IOException("File is truncated: " + size + " records of width " + width
+                            + " do not fit in " + buffer.limit() + " bytes");
+                }
+            }
+        }
+
+        /* Checks the offset index once, so that get never reads outside the mapped region, returns data start */
+        private static int checkOffsets(ByteBuffer buffer, int size) throws IOException {
+            long dataStart = HEADER_SIZE + (size + 1L) * Integer.BYTES;
+            if (dataStart > buffer.limit()) {
+                throw new IOException("File is truncated: offset index of " + size + " records does not fit");
+            }
+            if (buffer.getInt(HEADER_SIZE) != 0) {
+                throw new IOException("First record offset is not zero");
+            }
+            int previous = 0;
+            for (int i = 1; i <= size; i++) {
+                int offset = buffer.getInt(HEADER_SIZE + i * Integer.BYTES);
+                if (offset < previous) {
+                    throw new IOException("Record offsets decrease at " + i);
+                }
+                previous = offset;
+            }
+            if (dataStart + previous > buffer.limit()) {
+                throw new IOException("File is truncated: record data ends at " + (dataStart + previous)
+                        + " beyond " + buffer.limit() + " bytes");
+            }
+            return (int) dataStart;
+        }
+
+        @Override
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            if (width != RecordCodec.VARIABLE_WIDTH) {
+                return codec.decode(buffer, dataStart + index * width, width);
+            }
+            int begin = buffer.getInt(HEADER_SIZE + index * Integer.BYTES);
+            int end = buffer.getInt(HEADER_SIZE + (index + 1) * Integer.BYTES);
+            return codec.decode(buffer, dataStart + begin, end - begin);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    public static class Builder<T> {
+        private final RecordCodec<T> codec;
+        private final Comparator<? super T> comparator;
+
+        public Builder(RecordCodec<T> codec, Comparator<? super T> comparator) {
+            this.codec = codec;
+            this.comparator = comparator;
+        }
+
+        public Builder(RecordCodec<T> codec) {
+            this(codec, null);
+        }
+
+        /* Elements must be strictly increasing in comparator order */
+        public MappedArraySet<T> write(Path file, Collection<? extends T> sorted) throws IOException {
+            int size = sorted.size();
+            int width = codec.width();
+            boolean variable = width == RecordCodec.VARIABLE_WIDTH;
+            long dataStart = HEADER_SIZE + (variable ? (size + 1L) * Integer.BYTES : 0);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(width).putInt(size);
+                channel.write(header.flip(), 0);
+                channel.position(dataStart);
+                int[] offsets = variable ? new int[size + 1] : null;
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                T previous = null;
+                int index = 0;
+                for (T element : sorted) {
+                    if (index > 0 && compare(previous, element) >= 0) {
+                        throw new IllegalArgumentException("Elements are not sorted or not distinct at " + index);
+                    }
+                    codec.encode(element, output);
+                    previous = element;
+                    index++;
+                    if (variable) {
+                        if (output.size() == Integer.MAX_VALUE) {
+                            throw new IOException("Record data exceeds 2 GB");
+                        }
+                        offsets[index] = output.size();
+                    } else if (output.size() != index * width) {
+                        throw new IOException("Codec wrote a record of unexpected width at " + (index - 1));
+                    }
+                }
+                output.flush();
+                if (variable) {
+                    ByteBuffer offsetIndex = ByteBuffer.allocate(offsets.length * Integer.BYTES);
+                    offsetIndex.asIntBuffer().put(offsets);
+                    channel.write(offsetIndex, HEADER_SIZE);
+                }
+            }
+            return new MappedArraySet<>(file, codec, comparator);
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(T e1, T e2) {
+            return comparator == null ? ((Comparable<? super T>) e1).compareTo(e2) : comparator.compare(e1, e2);
+        }
+    }
+}
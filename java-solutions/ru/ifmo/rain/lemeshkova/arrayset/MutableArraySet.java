@@ -0,0 +1,444 @@
+package ru.ifmo.rain.lemeshkova.arrayset;
+
+import java.util.*;
+
+/*
+ * Mutable set with the read profile of ArraySet. Updates go to a small sorted delta of added elements
+ * and a set of tombstones for removed elements of the base, both are copied on write.
+ * When they hold mergeThreshold elements together, they are merged into a new base array.
+ * Base, delta and tombstones are published together as an immutable snapshot through a volatile field,
+ * so readers never lock and always see a consistent state. Writers are serialized.
+ * Views and iterators are taken from the current snapshot and do not see later updates.
+ */
+public class MutableArraySet<T> extends AbstractSet<T> implements NavigableSet<T> {
+    public static final int DEFAULT_MERGE_THRESHOLD = 1024;
+
+    private final Comparator<? super T> comparator;
+    private final int mergeThreshold;
+    private volatile Snapshot<T> state;
+
+    public MutableArraySet(Collection<? extends T> collection, Comparator<? super T> comparator, int mergeThreshold) {
+        if (mergeThreshold <= 0) throw new IllegalArgumentException("Merge threshold should be positive");
+        this.comparator = comparator;
+        this.mergeThreshold = mergeThreshold;
+        this.state = new Snapshot<>(new ArraySet<>(collection, comparator));
+    }
+
+    public MutableArraySet(Collection<? extends T> collection, Comparator<? super T> comparator) {
+        this(collection, comparator, DEFAULT_MERGE_THRESHOLD);
+    }
+
+    public MutableArraySet(Collection<? extends T> collection) {
+        this(collection, null);
+    }
+
+    public MutableArraySet(Comparator<? super T> comparator) {
+        this(Collections.emptyList(), comparator);
+    }
+
+    public MutableArraySet() {
+        this(Collections.emptyList());
+    }
+
+    /* Immutable set of the elements at the moment of the call */
+    public NavigableSet<T> snapshot() {
+        return state;
+    }
+
+    @Override
+    public synchronized boolean add(T t) {
+        Objects.requireNonNull(t);
+        Snapshot<T> current = state;
+        if (current.tombstones.contains(t)) {
+            update(current.base, current.delta, without(current.tombstones, t));
+        } else if (current.base.contains(t) || current.delta.contains(t)) {
+            return false;
+        } else {
+            update(current.base, with(current.delta, t), current.tombstones);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized boolean remove(Object o) {
+        T t = (T) Objects.requireNonNull(o);
+        Snapshot<T> current = state;
+        if (current.delta.contains(t)) {
+            update(current.base, without(current.delta, t), current.tombstones);
+        } else if (current.base.contains(t) && !current.tombstones.contains(t)) {
+            update(current.base, current.delta, with(current.tombstones, t));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized T pollFirst() {
+        return poll(state.isEmpty() ? null : state.first());
+    }
+
+    @Override
+    public synchronized T pollLast() {
+        return poll(state.isEmpty() ? null : state.last());
+    }
+
+    @Override
+    public synchronized void clear() {
+        state = new Snapshot<>(ArraySet.ofSortedList(List.of(), comparator));
+    }
+
+    private T poll(T t) {
+        if (t != null) {
+            remove(t);
+        }
+        return t;
+    }
+
+    private void update(ArraySet<T> base, ArraySet<T> delta, ArraySet<T> tombstones) {
+        Snapshot<T> updated = new Snapshot<>(base, delta, tombstones);
+        if (delta.size() + tombstones.size() >= mergeThreshold) {
+            updated = new Snapshot<>(updated.compact());
+        }
+        state = updated;
+    }
+
+    private ArraySet<T> with(ArraySet<T> set, T t) {
+        List<T> list = new ArrayList<>(set.size() + 1);
+        list.addAll(set);
+        list.add(set.headSet(t).size(), t);
+        return ArraySet.ofSortedList(Collections.unmodifiableList(list), comparator);
+    }
+
+    private ArraySet<T> without(ArraySet<T> set, T t) {
+        List<T> list = new ArrayList<>(set);
+        list.remove(set.headSet(t).size());
+        return ArraySet.ofSortedList(Collections.unmodifiableList(list), comparator);
+    }
+
+    @Override
+    public T lower(T t) {
+        return state.lower(t);
+    }
+
+    @Override
+    public T floor(T t) {
+        return state.floor(t);
+    }
+
+    @Override
+    public T ceiling(T t) {
+        return state.ceiling(t);
+    }
+
+    @Override
+    public T higher(T t) {
+        return state.higher(t);
+    }
+
+    @Override
+    public T first() {
+        return state.first();
+    }
+
+    @Override
+    public T last() {
+        return state.last();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return state.contains(o);
+    }
+
+    @Override
+    public int size() {
+        return state.size();
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<T> iterator = state.iterator();
+        return new Iterator<>() {
+            private T last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return last = iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) throw new IllegalStateException();
+                MutableArraySet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<T> descendingIterator() {
+        return state.descendingIterator();
+    }
+
+    @Override
+    public NavigableSet<T> descendingSet() {
+        return state.descendingSet();
+    }
+
+    @Override
+    public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+        return state.subSet(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    @Override
+    public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+        return state.headSet(toElement, inclusive);
+    }
+
+    @Override
+    public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+        return state.tailSet(fromElement, inclusive);
+    }
+
+    @Override
+    public SortedSet<T> subSet(T fromElement, T toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> headSet(T toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> tailSet(T fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    /*
+     * Base without tombstones plus delta. Point queries combine answers of the three sorted arrays,
+     * views are cut from the merged array, which is built once per snapshot.
+     */
+    private static class Snapshot<T> extends AbstractSet<T> implements NavigableSet<T> {
+        private final ArraySet<T> base;
+        private final ArraySet<T> delta;
+        private final ArraySet<T> tombstones;
+        private ArraySet<T> compacted;
+
+        Snapshot(ArraySet<T> base) {
+            this(base, ArraySet.ofSortedList(List.of(), base.comparator()), ArraySet.ofSortedList(List.of(), base.comparator()));
+        }
+
+        Snapshot(ArraySet<T> base, ArraySet<T> delta, ArraySet<T> tombstones) {
+            this.base = base;
+            this.delta = delta;
+            this.tombstones = tombstones;
+            if (delta.isEmpty() && tombstones.isEmpty()) {
+                compacted = base;
+            }
+        }
+
+        ArraySet<T> compact() {
+            ArraySet<T> result = compacted;
+            if (result == null) {
+                @SuppressWarnings("unchecked")
+                T[] array = (T[]) new Object[size()];
+                int size = 0;
+                Iterator<T> iterator = iterator();
+                while (iterator.hasNext()) {
+                    array[size++] = iterator.next();
+                }
+                compacted = result = ArraySet.ofSortedList(Collections.unmodifiableList(Arrays.asList(array)), comparator());
+            }
+            return result;
+        }
+
+        @Override
+        public T lower(T t) {
+            return max(live(base.lower(t), false), delta.lower(t));
+        }
+
+        @Override
+        public T floor(T t) {
+            return max(live(base.floor(t), false), delta.floor(t));
+        }
+
+        @Override
+        public T ceiling(T t) {
+            return min(live(base.ceiling(t), true), delta.ceiling(t));
+        }
+
+        @Override
+        public T higher(T t) {
+            return min(live(base.higher(t), true), delta.higher(t));
+        }
+
+        @Override
+        public T first() {
+            if (isEmpty()) throw new NoSuchElementException("MutableArraySet is empty");
+            return min(live(base.isEmpty() ? null : base.first(), true), delta.isEmpty() ? null : delta.first());
+        }
+
+        @Override
+        public T last() {
+            if (isEmpty()) throw new NoSuchElementException("MutableArraySet is empty");
+            return max(live(base.isEmpty() ? null : base.last(), false), delta.isEmpty() ? null : delta.last());
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return delta.contains(o) || base.contains(o) && !tombstones.contains(o);
+        }
+
+        @Override
+        public int size() {
+            return base.size() - tombstones.size() + delta.size();
+        }
+
+        @Override
+        public Comparator<? super T> comparator() {
+            return base.comparator();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            if (compacted != null) {
+                return compacted.iterator();
+            }
+            return new Iterator<>() {
+                private final Iterator<T> baseIterator = base.iterator();
+                private final Iterator<T> deltaIterator = delta.iterator();
+                private final Iterator<T> tombstoneIterator = tombstones.iterator();
+                private T nextTombstone = tombstoneIterator.hasNext() ? tombstoneIterator.next() : null;
+                private T nextBase = nextLive();
+                private T nextDelta = deltaIterator.hasNext() ? deltaIterator.next() : null;
+
+                private T nextLive() {
+                    while (baseIterator.hasNext()) {
+                        T t = baseIterator.next();
+                        while (nextTombstone != null && compare(nextTombstone, t) < 0) {
+                            nextTombstone = tombstoneIterator.hasNext() ? tombstoneIterator.next() : null;
+                        }
+                        if (nextTombstone == null || compare(nextTombstone, t) != 0) {
+                            return t;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return nextBase != null || nextDelta != null;
+                }
+
+                @Override
+                public T next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    T result;
+                    if (nextDelta == null || nextBase != null && compare(nextBase, nextDelta) < 0) {
+                        result = nextBase;
+                        nextBase = nextLive();
+                    } else {
+                        result = nextDelta;
+                        nextDelta = deltaIterator.hasNext() ? deltaIterator.next() : null;
+                    }
+                    return result;
+                }
+            };
+        }
+
+        @Override
+        public Iterator<T> descendingIterator() {
+            return compact().descendingIterator();
+        }
+
+        @Override
+        public NavigableSet<T> descendingSet() {
+            return compact().descendingSet();
+        }
+
+        @Override
+        public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+            return compact().subSet(fromElement, fromInclusive, toElement, toInclusive);
+        }
+
+        @Override
+        public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+            return compact().headSet(toElement, inclusive);
+        }
+
+        @Override
+        public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+            return compact().tailSet(fromElement, inclusive);
+        }
+
+        @Override
+        public SortedSet<T> subSet(T fromElement, T toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<T> headSet(T toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<T> tailSet(T fromElement) {
+            return tailSet(fromElement, true);
+        }
+
+        private T live(T t, boolean ascending) {
+            while (t != null && tombstones.contains(t)) {
+                t = ascending ? base.higher(t) : base.lower(t);
+            }
+            return t;
+        }
+
+        private T min(T t1, T t2) {
+            if (t1 == null) return t2;
+            if (t2 == null) return t1;
+            return compare(t1, t2) <= 0 ? t1 : t2;
+        }
+
+        private T max(T t1, T t2) {
+            if (t1 == null) return t2;
+            if (t2 == null) return t1;
+            return compare(t1, t2) >= 0 ? t1 : t2;
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(T e1, T e2) {
+            Comparator<? super T> comparator = comparator();
+            return comparator == null ? ((Comparable<? super T>) e1).compareTo(e2) : comparator.compare(e1, e2);
+        }
+
+        /*Unsupperted Operations*/
+
+        @Override
+        public T pollFirst() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public T pollLast() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
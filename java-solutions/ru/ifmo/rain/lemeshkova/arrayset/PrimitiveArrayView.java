@@ -0,0 +1,92 @@
+package ru.ifmo.rain.lemeshkova.arrayset;
+
+/*
+ * Range [from, to) of a sorted array without duplicates, seen in ascending or descending order.
+ * Elements are located by Arrays.binarySearch results over the range, so IntArraySet and LongArraySet
+ * share all index arithmetic of their views and differ only in the array they search.
+ */
+final class PrimitiveArrayView {
+    final int from;
+    final int to;
+    final boolean reversed;
+
+    PrimitiveArrayView(int from, int to, boolean reversed) {
+        this.from = from;
+        this.to = to;
+        this.reversed = reversed;
+    }
+
+    int size() {
+        return to - from;
+    }
+
+    /* Array index of the i-th element in view order */
+    int index(int i) {
+        return reversed ? to - 1 - i : from + i;
+    }
+
+    boolean inRange(int index) {
+        return index >= from && index < to;
+    }
+
+    /* Comparison result of two elements in view order from their ascending comparison result */
+    int compare(int ascending) {
+        return reversed ? -ascending : ascending;
+    }
+
+    int lowerIndex(int search) {
+        return reversed ? upperBound(search) : lowerBound(search) - 1;
+    }
+
+    int floorIndex(int search) {
+        return reversed ? lowerBound(search) : upperBound(search) - 1;
+    }
+
+    int ceilingIndex(int search) {
+        return reversed ? upperBound(search) - 1 : lowerBound(search);
+    }
+
+    int higherIndex(int search) {
+        return reversed ? lowerBound(search) - 1 : upperBound(search);
+    }
+
+    PrimitiveArrayView subView(int fromSearch, boolean fromInclusive, int toSearch, boolean toInclusive) {
+        return reversed ? view(rangeLow(toSearch, toInclusive), rangeHigh(fromSearch, fromInclusive))
+                : view(rangeLow(fromSearch, fromInclusive), rangeHigh(toSearch, toInclusive));
+    }
+
+    PrimitiveArrayView headView(int toSearch, boolean inclusive) {
+        return reversed ? view(rangeLow(toSearch, inclusive), to) : view(from, rangeHigh(toSearch, inclusive));
+    }
+
+    PrimitiveArrayView tailView(int fromSearch, boolean inclusive) {
+        return reversed ? view(from, rangeHigh(fromSearch, inclusive)) : view(rangeLow(fromSearch, inclusive), to);
+    }
+
+    PrimitiveArrayView descending() {
+        return new PrimitiveArrayView(from, to, !reversed);
+    }
+
+    /* Ranges are [begin, end) in the ascending array, an element starts or ends a range depending on direction */
+    private static int rangeLow(int search, boolean inclusive) {
+        return inclusive ? lowerBound(search) : upperBound(search);
+    }
+
+    private static int rangeHigh(int search, boolean inclusive) {
+        return inclusive ? upperBound(search) : lowerBound(search);
+    }
+
+    /* Index of the first element not less than the searched one */
+    private static int lowerBound(int search) {
+        return search < 0 ? -search - 1 : search;
+    }
+
+    /* Index of the first element greater than the searched one */
+    private static int upperBound(int search) {
+        return search < 0 ? -search - 1 : search + 1;
+    }
+
+    private PrimitiveArrayView view(int begin, int end) {
+        return new PrimitiveArrayView(begin, Math.max(begin, end), reversed);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.ifmo.rain.lemeshkova.arrayset;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public interface RecordCodec<T> {
+    int VARIABLE_WIDTH = -1;
+
+    /* Size of every encoded record in bytes or VARIABLE_WIDTH */
+    int width();
+
+    void encode(T value, DataOutput output) throws IOException;
+
+    /* Must use absolute reads only, buffer is shared between readers */
+    T decode(ByteBuffer buffer, int offset, int length);
+
+    RecordCodec<Integer> INTS = new RecordCodec<>() {
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void encode(Integer value, DataOutput output) throws IOException {
+            output.writeInt(value);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer buffer, int offset, int length) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    RecordCodec<Long> LONGS = new RecordCodec<>() {
+        @Override
+        public int width() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void encode(Long value, DataOutput output) throws IOException {
+            output.writeLong(value);
+        }
+
+        @Override
+        public Long decode(ByteBuffer buffer, int offset, int length) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    RecordCodec<String> STRINGS = new RecordCodec<>() {
+        @Override
+        public int width() {
+            return VARIABLE_WIDTH;
+        }
+
+        @Override
+        public void encode(String value, DataOutput output) throws IOException {
+            output.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer, int offset, int length) {
+            byte[] bytes = new byte[length];
+            buffer.duplicate().position(offset).get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+}
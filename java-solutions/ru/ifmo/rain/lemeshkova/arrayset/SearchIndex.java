@@ -0,0 +1,7 @@
+package ru.ifmo.rain.lemeshkova.arrayset;
+
+/* Search over the root list of ArraySet replacing plain binary search */
+interface SearchIndex<T> {
+    /* Same contract as Collections.binarySearch over the root list */
+    int search(T key);
+}
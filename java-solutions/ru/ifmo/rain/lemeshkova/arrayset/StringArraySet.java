@@ -0,0 +1,238 @@
+package ru.ifmo.rain.lemeshkova.arrayset;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/*
+ * ArraySet of strings in natural order stored front-coded in a single byte array.
+ * Strings are grouped in blocks of BLOCK_SIZE, the first string of a block is written in full
+ * as UTF-8, every next one as the number of bytes shared with the previous string and the rest of its bytes.
+ * Searches binary-search the block heads and then decode the strings of one block.
+ * Iteration goes through the list iterator of the root, which decodes every block once.
+ */
+public class StringArraySet extends ArraySet<String> {
+
+    public StringArraySet(Collection<String> strings) {
+        this(new FrontCodedList(new ArraySet<>(strings)));
+    }
+
+    public StringArraySet() {
+        this(Collections.emptyList());
+    }
+
+    private StringArraySet(FrontCodedList list) {
+        super(list, null, list);
+    }
+
+    private static class FrontCodedList extends AbstractList<String> implements RandomAccess, SearchIndex<String> {
+        private static final int BLOCK_SIZE = 16;
+
+        private final byte[] data;
+        private final int[] blocks;
+        private final int size;
+
+        private FrontCodedList(Collection<String> sorted) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            blocks = new int[(sorted.size() + BLOCK_SIZE - 1) / BLOCK_SIZE];
+            size = sorted.size();
+            byte[] previous = new byte[0];
+            int index = 0;
+            for (String string : sorted) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                int shared = 0;
+                if (index % BLOCK_SIZE == 0) {
+                    blocks[index / BLOCK_SIZE] = output.size();
+                } else {
+                    int limit = Math.min(previous.length, bytes.length);
+                    while (shared < limit && previous[shared] == bytes[shared]) {
+                        shared++;
+                    }
+                    writeVarint(output, shared);
+                }
+                writeVarint(output, bytes.length - shared);
+                output.write(bytes, shared, bytes.length - shared);
+                previous = bytes;
+                index++;
+            }
+            data = output.toByteArray();
+        }
+
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, size);
+            Cursor cursor = new Cursor(index / BLOCK_SIZE);
+            for (int i = index % BLOCK_SIZE; i > 0; i--) {
+                cursor.next();
+            }
+            return cursor.string();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return listIterator(0);
+        }
+
+        @Override
+        public ListIterator<String> listIterator(int index) {
+            if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            return new BlockIterator(index);
+        }
+
+        @Override
+        public int search(String key) {
+            int low = 0;
+            int high = blocks.length - 1;
+            int block = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int cmp = new Cursor(middle).string().compareTo(key);
+                if (cmp == 0) return middle * BLOCK_SIZE;
+                if (cmp < 0) {
+                    block = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            if (block < 0) return -1;
+            Cursor cursor = new Cursor(block);
+            int end = Math.min(size, (block + 1) * BLOCK_SIZE);
+            for (int i = block * BLOCK_SIZE + 1; i < end; i++) {
+                cursor.next();
+                int cmp = cursor.string().compareTo(key);
+                if (cmp == 0) return i;
+                if (cmp > 0) return -i - 1;
+            }
+            return -end - 1;
+        }
+
+        private static void writeVarint(ByteArrayOutputStream output, int value) {
+            while ((value & ~0x7F) != 0) {
+                output.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            output.write(value);
+        }
+
+        /* Iterates in both directions over strings of the current block decoded at once */
+        private class BlockIterator implements ListIterator<String> {
+            private final String[] strings = new String[BLOCK_SIZE];
+            private int block = -1;
+            private int index;
+
+            BlockIterator(int index) {
+                this.index = index;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return string(index++);
+            }
+
+            @Override
+            public boolean hasPrevious() {
+                return index > 0;
+            }
+
+            @Override
+            public String previous() {
+                if (!hasPrevious()) throw new NoSuchElementException();
+                return string(--index);
+            }
+
+            @Override
+            public int nextIndex() {
+                return index;
+            }
+
+            @Override
+            public int previousIndex() {
+                return index - 1;
+            }
+
+            private String string(int i) {
+                if (i / BLOCK_SIZE != block) {
+                    block = i / BLOCK_SIZE;
+                    Cursor cursor = new Cursor(block);
+                    strings[0] = cursor.string();
+                    int count = Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE);
+                    for (int k = 1; k < count; k++) {
+                        cursor.next();
+                        strings[k] = cursor.string();
+                    }
+                }
+                return strings[i % BLOCK_SIZE];
+            }
+
+            /*Unsupperted Operations*/
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void set(String s) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void add(String s) {
+                throw new UnsupportedOperationException();
+            }
+        }
+
+        /* Decodes strings of one block one after another */
+        private class Cursor {
+            private int position;
+            private byte[] current = new byte[64];
+            private int length;
+
+            Cursor(int block) {
+                position = blocks[block];
+                read(0);
+            }
+
+            void next() {
+                read(readVarint());
+            }
+
+            String string() {
+                return new String(current, 0, length, StandardCharsets.UTF_8);
+            }
+
+            private void read(int shared) {
+                int suffix = readVarint();
+                length = shared + suffix;
+                if (length > current.length) {
+                    current = Arrays.copyOf(current, Math.max(length, 2 * current.length));
+                }
+                System.arraycopy(data, position, current, shared, suffix);
+                position += suffix;
+            }
+
+            private int readVarint() {
+                int value = 0;
+                for (int shift = 0; ; shift += 7) {
+                    int b = data[position++];
+                    value |= (b & 0x7F) << shift;
+                    if ((b & 0x80) == 0) {
+                        return value;
+                    }
+                }
+            }
+        }
+    }
+}
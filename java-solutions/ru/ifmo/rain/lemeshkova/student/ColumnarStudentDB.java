@@ -0,0 +1,411 @@
+package ru.ifmo.rain.lemeshkova.student;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+import info.kgeorgiy.java.advanced.student.Group;
+import info.kgeorgiy.java.advanced.student.Student;
+
+/*
+ * StudentDB answering queries over ColumnarStudents by their columns: filters and groupings compare
+ * int codes, orders compare ids and ranks of codes in the dictionaries instead of strings.
+ * Student and Group objects are created for results only. Other collections are queried by StudentDB.
+ */
+public class ColumnarStudentDB extends StudentDB {
+
+    @Override
+    public List<Group> getGroupsByName(Collection<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getGroupsByName(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return createGroups(columns, bucket -> sortByName(columns, bucket));
+    }
+
+    @Override
+    public List<Group> getGroupsById(Collection<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getGroupsById(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return createGroups(columns, bucket -> sortById(columns, bucket));
+    }
+
+    @Override
+    public String getLargestGroup(Collection<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getLargestGroup(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        int[] sizes = new int[columns.groupNames.size()];
+        for (int group : columns.groups) {
+            sizes[group]++;
+        }
+        return largestGroup(columns, sizes);
+    }
+
+    @Override
+    public String getLargestGroupFirstName(Collection<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getLargestGroupFirstName(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        long[] pairs = new long[columns.size()];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = (long) columns.groups[i] << 32 | columns.firstNames[i];
+        }
+        Arrays.sort(pairs);
+        int[] distinct = new int[columns.groupNames.size()];
+        for (int i = 0; i < pairs.length; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                distinct[(int) (pairs[i] >>> 32)]++;
+            }
+        }
+        return largestGroup(columns, distinct);
+    }
+
+    @Override
+    public List<String> getFirstNames(List<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getFirstNames(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return mapIndices(columns.size(), columns::firstName);
+    }
+
+    @Override
+    public List<String> getLastNames(List<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getLastNames(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return mapIndices(columns.size(), columns::lastName);
+    }
+
+    @Override
+    public List<String> getGroups(List<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getGroups(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return mapIndices(columns.size(), columns::group);
+    }
+
+    @Override
+    public List<String> getFullNames(List<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getFullNames(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return mapIndices(columns.size(), i -> fullName(columns, i));
+    }
+
+    @Override
+    public Set<String> getDistinctFirstNames(List<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getDistinctFirstNames(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        boolean[] seen = new boolean[columns.names.size()];
+        Set<String> result = new TreeSet<>();
+        for (int name : columns.firstNames) {
+            if (!seen[name]) {
+                seen[name] = true;
+                result.add(columns.names.get(name));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String getMinStudentFirstName(List<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getMinStudentFirstName(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        int min = -1;
+        for (int i = 0; i < columns.size(); i++) {
+            if (min == -1 || columns.ids[i] < columns.ids[min]) {
+                min = i;
+            }
+        }
+        return min == -1 ? "" : columns.firstName(min);
+    }
+
+    @Override
+    public List<Student> sortStudentsById(Collection<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.sortStudentsById(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return materialize(columns, sortById(columns, allIndices(columns)));
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(Collection<Student> students) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.sortStudentsByName(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return materialize(columns, sortByName(columns, allIndices(columns)));
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.findStudentsByFirstName(students, name);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return materialize(columns, sortByName(columns, filter(columns.firstNames, columns.names.code(name))));
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.findStudentsByLastName(students, name);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return materialize(columns, sortByName(columns, filter(columns.lastNames, columns.names.code(name))));
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, String group) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.findStudentsByGroup(students, group);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return materialize(columns, sortByName(columns, filter(columns.groups, columns.groupNames.code(group))));
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(Collection<Student> students, String group) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.findStudentNamesByGroup(students, group);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        Map<Integer, Integer> firstByLast = new HashMap<>();
+        for (int i : filter(columns.groups, columns.groupNames.code(group))) {
+            firstByLast.merge(columns.lastNames[i], columns.firstNames[i],
+                    (first1, first2) -> columns.names.rank(first1) <= columns.names.rank(first2) ? first1 : first2);
+        }
+        Map<String, String> result = new HashMap<>();
+        firstByLast.forEach((last, first) -> result.put(columns.names.get(last), columns.names.get(first)));
+        return result;
+    }
+
+    @Override
+    public String getMostPopularName(Collection<Student> students) {
+        if (!(students instanceof ColumnarStudents) || hasSpaces(((ColumnarStudents) students).names)) {
+            return super.getMostPopularName(students);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        Map<Long, Set<Integer>> groupsByName = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            groupsByName.computeIfAbsent((long) columns.firstNames[i] << 32 | columns.lastNames[i],
+                    name -> new HashSet<>()).add(columns.groups[i]);
+        }
+        String best = "";
+        int bestGroups = -1;
+        for (Map.Entry<Long, Set<Integer>> entry : groupsByName.entrySet()) {
+            int groups = entry.getValue().size();
+            if (groups < bestGroups) continue;
+            String name = columns.names.get((int) (entry.getKey() >>> 32)) + " "
+                    + columns.names.get((int) (long) entry.getKey());
+            if (groups > bestGroups || name.compareTo(best) > 0) {
+                best = name;
+                bestGroups = groups;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public List<String> getFirstNames(Collection<Student> students, int[] indices) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getFirstNames(students, indices);
+        }
+        return mapIndices(indices, ((ColumnarStudents) students)::firstName);
+    }
+
+    @Override
+    public List<String> getLastNames(Collection<Student> students, int[] indices) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getLastNames(students, indices);
+        }
+        return mapIndices(indices, ((ColumnarStudents) students)::lastName);
+    }
+
+    @Override
+    public List<String> getGroups(Collection<Student> students, int[] indices) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getGroups(students, indices);
+        }
+        return mapIndices(indices, ((ColumnarStudents) students)::group);
+    }
+
+    @Override
+    public List<String> getFullNames(Collection<Student> students, int[] indices) {
+        if (!(students instanceof ColumnarStudents)) {
+            return super.getFullNames(students, indices);
+        }
+        ColumnarStudents columns = (ColumnarStudents) students;
+        return mapIndices(indices, i -> fullName(columns, i));
+    }
+
+    private static String fullName(ColumnarStudents columns, int index) {
+        return columns.firstName(index) + " " + columns.lastName(index);
+    }
+
+    /* Full names with spaces can coincide for different name pairs, such students are grouped by StudentDB */
+    private static boolean hasSpaces(StringDictionary names) {
+        for (int code = 0; code < names.size(); code++) {
+            if (names.get(code).indexOf(' ') >= 0) return true;
+        }
+        return false;
+    }
+
+    /* Largest value, ties are broken by smaller group name */
+    private static String largestGroup(ColumnarStudents columns, int[] values) {
+        int best = -1;
+        for (int group : columns.groupNames.sortedCodes()) {
+            if (values[group] > 0 && (best == -1 || values[group] > values[best])) {
+                best = group;
+            }
+        }
+        return best == -1 ? "" : columns.groupNames.get(best);
+    }
+
+    private static List<Group> createGroups(ColumnarStudents columns, IntArrayOperator order) {
+        int[][] buckets = groupBuckets(columns);
+        List<Group> result = new ArrayList<>();
+        for (int group : columns.groupNames.sortedCodes()) {
+            if (buckets[group].length > 0) {
+                result.add(new Group(columns.groupNames.get(group), materialize(columns, order.apply(buckets[group]))));
+            }
+        }
+        return result;
+    }
+
+    /* Indices of students of every group in list order */
+    private static int[][] groupBuckets(ColumnarStudents columns) {
+        int[] sizes = new int[columns.groupNames.size()];
+        for (int group : columns.groups) {
+            sizes[group]++;
+        }
+        int[][] buckets = new int[sizes.length][];
+        for (int group = 0; group < sizes.length; group++) {
+            buckets[group] = new int[sizes[group]];
+            sizes[group] = 0;
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            int group = columns.groups[i];
+            buckets[group][sizes[group]++] = i;
+        }
+        return buckets;
+    }
+
+    private static int[] allIndices(ColumnarStudents columns) {
+        int[] indices = new int[columns.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    private static int[] filter(int[] column, int code) {
+        if (code < 0) {
+            return new int[0];
+        }
+        int count = 0;
+        for (int value : column) {
+            if (value == code) count++;
+        }
+        int[] indices = new int[count];
+        count = 0;
+        for (int i = 0; i < column.length; i++) {
+            if (column[i] == code) {
+                indices[count++] = i;
+            }
+        }
+        return indices;
+    }
+
+    /*
+     * Same order as compareByName. Stable sorts by each key from the least significant one,
+     * so no comparator is called and no index is boxed.
+     */
+    private static int[] sortByName(ColumnarStudents columns, int[] indices) {
+        int[] keys = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            keys[i] = columns.groupNames.rank(columns.groups[indices[i]]);
+        }
+        sortStable(indices, keys);
+        for (int i = 0; i < indices.length; i++) {
+            keys[i] = columns.ids[indices[i]];
+        }
+        sortStable(indices, keys);
+        for (int i = 0; i < indices.length; i++) {
+            keys[i] = columns.names.rank(columns.firstNames[indices[i]]);
+        }
+        sortStable(indices, keys);
+        for (int i = 0; i < indices.length; i++) {
+            keys[i] = columns.names.rank(columns.lastNames[indices[i]]);
+        }
+        sortStable(indices, keys);
+        return indices;
+    }
+
+    /* Reorders indices by keys[i] of their positions, equal keys keep their relative order */
+    private static void sortStable(int[] indices, int[] keys) {
+        long[] packed = new long[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            packed[i] = (long) keys[i] << 32 | i;
+        }
+        Arrays.sort(packed);
+        int[] previous = indices.clone();
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = previous[(int) packed[i]];
+        }
+    }
+
+    /* Stable: students with equal ids keep list order */
+    private static int[] sortById(ColumnarStudents columns, int[] indices) {
+        long[] keys = new long[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            keys[i] = (long) columns.ids[indices[i]] << 32 | indices[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = (int) keys[i];
+        }
+        return indices;
+    }
+
+    private static List<Student> materialize(ColumnarStudents columns, int[] indices) {
+        List<Student> result = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            result.add(columns.get(index));
+        }
+        return result;
+    }
+
+    private static List<String> mapIndices(int size, IntFunction<String> value) {
+        List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(value.apply(i));
+        }
+        return result;
+    }
+
+    private static List<String> mapIndices(int[] indices, IntFunction<String> value) {
+        List<String> result = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            result.add(value.apply(index));
+        }
+        return result;
+    }
+
+    private interface IntArrayOperator {
+        int[] apply(int[] indices);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.ifmo.rain.lemeshkova.student;
+
+import java.util.*;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+/*
+ * Immutable list of students stored by columns: ids and dictionary codes of names and groups.
+ * First and last names share one dictionary. Students are created on access, so any StudentDB
+ * can query the list, ColumnarStudentDB answers over the codes and creates only the result.
+ */
+public class ColumnarStudents extends AbstractList<Student> implements RandomAccess {
+    final int[] ids;
+    final int[] firstNames;
+    final int[] lastNames;
+    final int[] groups;
+    final StringDictionary names;
+    final StringDictionary groupNames;
+
+    public ColumnarStudents(Collection<Student> students) {
+        int size = students.size();
+        ids = new int[size];
+        firstNames = new int[size];
+        lastNames = new int[size];
+        groups = new int[size];
+        StringDictionary.Builder names = new StringDictionary.Builder();
+        StringDictionary.Builder groupNames = new StringDictionary.Builder();
+        int i = 0;
+        for (Student student : students) {
+            ids[i] = student.getId();
+            firstNames[i] = names.add(student.getFirstName());
+            lastNames[i] = names.add(student.getLastName());
+            groups[i] = groupNames.add(student.getGroup());
+            i++;
+        }
+        this.names = names.build();
+        this.groupNames = groupNames.build();
+    }
+
+    @Override
+    public Student get(int index) {
+        return new Student(ids[index], names.get(firstNames[index]), names.get(lastNames[index]),
+                groupNames.get(groups[index]));
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    String firstName(int index) {
+        return names.get(firstNames[index]);
+    }
+
+    String lastName(int index) {
+        return names.get(lastNames[index]);
+    }
+
+    String group(int index) {
+        return groupNames.get(groups[index]);
+    }
+
+    /* Same order of indices as StudentDB sorts their students by name */
+    int compareByName(int i, int j) {
+        int cmp = Integer.compare(names.rank(lastNames[i]), names.rank(lastNames[j]));
+        if (cmp == 0) cmp = Integer.compare(names.rank(firstNames[i]), names.rank(firstNames[j]));
+        if (cmp == 0) cmp = Integer.compare(ids[i], ids[j]);
+        if (cmp == 0) cmp = Integer.compare(groupNames.rank(groups[i]), groupNames.rank(groups[j]));
+        return cmp;
+    }
+}
@@ -0,0 +1,158 @@
+package ru.ifmo.rain.lemeshkova.student;
+
+import java.util.*;
+import java.util.function.Function;
+
+import info.kgeorgiy.java.advanced.student.Group;
+import info.kgeorgiy.java.advanced.student.Student;
+
+/*
+ * StudentDB built once over a collection of students, which must not change afterwards.
+ * Queries passed the same collection instance are answered from precomputed orders and hash indexes
+ * in time proportional to the result size, any other collection is queried by StudentDB.
+ */
+public class IndexedStudentDB extends StudentDB {
+    private final Collection<Student> source;
+    private final List<Student> students;
+    private final List<Student> byId;
+    private final List<Student> byName;
+    private final Map<String, List<Student>> byFirstName;
+    private final Map<String, List<Student>> byLastName;
+    private final Map<String, List<Student>> byGroup;
+    private final List<Group> groupsByName;
+    private final List<Group> groupsById;
+    private final SortedSet<String> distinctFirstNames;
+    private final String minStudentFirstName;
+    private final String largestGroup;
+    private final String largestGroupFirstName;
+    private final String mostPopularName;
+
+    public IndexedStudentDB(Collection<Student> students) {
+        this.source = students;
+        this.students = new ArrayList<>(students);
+        this.byId = super.sortStudentsById(students);
+        this.byName = super.sortStudentsByName(students);
+        this.byFirstName = index(byName, Student::getFirstName);
+        this.byLastName = index(byName, Student::getLastName);
+        this.byGroup = index(byName, Student::getGroup);
+        this.groupsByName = super.getGroupsByName(students);
+        this.groupsById = super.getGroupsById(students);
+        this.distinctFirstNames = new TreeSet<>(byFirstName.keySet());
+        this.minStudentFirstName = super.getMinStudentFirstName(this.students);
+        this.largestGroup = super.getLargestGroup(students);
+        this.largestGroupFirstName = super.getLargestGroupFirstName(students);
+        this.mostPopularName = super.getMostPopularName(students);
+    }
+
+    private static Map<String, List<Student>> index(List<Student> students, Function<Student, String> key) {
+        Map<String, List<Student>> index = new HashMap<>();
+        for (Student student : students) {
+            index.computeIfAbsent(key.apply(student), k -> new ArrayList<>()).add(student);
+        }
+        return index;
+    }
+
+    private boolean indexed(Collection<Student> students) {
+        return students == source;
+    }
+
+    private static List<Student> find(Map<String, List<Student>> index, String key) {
+        return new ArrayList<>(index.getOrDefault(key, List.of()));
+    }
+
+    private static List<Group> copyGroups(List<Group> groups) {
+        List<Group> result = new ArrayList<>(groups.size());
+        for (Group group : groups) {
+            result.add(new Group(group.getName(), new ArrayList<>(group.getStudents())));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Group> getGroupsByName(Collection<Student> students) {
+        return indexed(students) ? copyGroups(groupsByName) : super.getGroupsByName(students);
+    }
+
+    @Override
+    public List<Group> getGroupsById(Collection<Student> students) {
+        return indexed(students) ? copyGroups(groupsById) : super.getGroupsById(students);
+    }
+
+    @Override
+    public String getLargestGroup(Collection<Student> students) {
+        return indexed(students) ? largestGroup : super.getLargestGroup(students);
+    }
+
+    @Override
+    public String getLargestGroupFirstName(Collection<Student> students) {
+        return indexed(students) ? largestGroupFirstName : super.getLargestGroupFirstName(students);
+    }
+
+    @Override
+    public Set<String> getDistinctFirstNames(List<Student> students) {
+        return indexed(students) ? new TreeSet<>(distinctFirstNames) : super.getDistinctFirstNames(students);
+    }
+
+    @Override
+    public String getMinStudentFirstName(List<Student> students) {
+        return indexed(students) ? minStudentFirstName : super.getMinStudentFirstName(students);
+    }
+
+    @Override
+    public List<Student> sortStudentsById(Collection<Student> students) {
+        return indexed(students) ? new ArrayList<>(byId) : super.sortStudentsById(students);
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(Collection<Student> students) {
+        return indexed(students) ? new ArrayList<>(byName) : super.sortStudentsByName(students);
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        return indexed(students) ? find(byFirstName, name) : super.findStudentsByFirstName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        return indexed(students) ? find(byLastName, name) : super.findStudentsByLastName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, String group) {
+        return indexed(students) ? find(byGroup, group) : super.findStudentsByGroup(students, group);
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(Collection<Student> students, String group) {
+        if (!indexed(students)) {
+            return super.findStudentNamesByGroup(students, group);
+        }
+        return super.findStudentNamesByGroup(byGroup.getOrDefault(group, List.of()), group);
+    }
+
+    @Override
+    public String getMostPopularName(Collection<Student> students) {
+        return indexed(students) ? mostPopularName : super.getMostPopularName(students);
+    }
+
+    @Override
+    public List<String> getFirstNames(Collection<Student> students, int[] indices) {
+        return super.getFirstNames(indexed(students) ? this.students : students, indices);
+    }
+
+    @Override
+    public List<String> getLastNames(Collection<Student> students, int[] indices) {
+        return super.getLastNames(indexed(students) ? this.students : students, indices);
+    }
+
+    @Override
+    public List<String> getGroups(Collection<Student> students, int[] indices) {
+        return super.getGroups(indexed(students) ? this.students : students, indices);
+    }
+
+    @Override
+    public List<String> getFullNames(Collection<Student> students, int[] indices) {
+        return super.getFullNames(indexed(students) ? this.students : students, indices);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.ifmo.rain.lemeshkova.student;
+
+import java.util.*;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+/*
+ * StudentDB over a changing set of students. Every add or remove updates per-group sizes,
+ * per-group multisets of first names and two ordered sets of groups in O(log n),
+ * ordered as getLargestGroup and getLargestGroupFirstName of StudentDB break ties.
+ * Their answers are published through volatile fields, so readers never wait for writers.
+ */
+public class LiveStudentDB extends StudentDB {
+    private static final Comparator<Map.Entry<String, Integer>> LARGEST_FIRST =
+            Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final Map<Student, Integer> students = new HashMap<>();
+    private int size;
+    private final Map<String, Integer> groupSizes = new HashMap<>();
+    private final Map<String, Map<String, Integer>> groupFirstNames = new HashMap<>();
+    private final NavigableSet<Map.Entry<String, Integer>> groupsBySize = new TreeSet<>(LARGEST_FIRST);
+    private final NavigableSet<Map.Entry<String, Integer>> groupsByFirstNames = new TreeSet<>(LARGEST_FIRST);
+    private volatile String largestGroup = "";
+    private volatile String largestGroupFirstName = "";
+
+    public LiveStudentDB() {
+    }
+
+    public LiveStudentDB(Collection<Student> students) {
+        students.forEach(this::add);
+    }
+
+    public synchronized void add(Student student) {
+        update(Objects.requireNonNull(student), 1);
+    }
+
+    public synchronized boolean remove(Student student) {
+        if (!students.containsKey(student)) {
+            return false;
+        }
+        update(student, -1);
+        return true;
+    }
+
+    /* Same as getLargestGroup(snapshot()) */
+    public String getLargestGroup() {
+        return largestGroup;
+    }
+
+    /* Same as getLargestGroupFirstName(snapshot()) */
+    public String getLargestGroupFirstName() {
+        return largestGroupFirstName;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /* Current students for the other queries */
+    public synchronized List<Student> snapshot() {
+        List<Student> result = new ArrayList<>(size);
+        students.forEach((student, count) -> result.addAll(Collections.nCopies(count, student)));
+        return result;
+    }
+
+    private void update(Student student, int delta) {
+        change(students, student, delta);
+        size += delta;
+
+        String group = student.getGroup();
+        int groupSize = change(groupSizes, group, delta);
+        reorder(groupsBySize, group, groupSize - delta, groupSize);
+
+        Map<String, Integer> firstNames = groupFirstNames.computeIfAbsent(group, g -> new HashMap<>());
+        int distinct = firstNames.size();
+        change(firstNames, student.getFirstName(), delta);
+        if (firstNames.isEmpty()) {
+            groupFirstNames.remove(group);
+        }
+        reorder(groupsByFirstNames, group, distinct, firstNames.size());
+
+        largestGroup = groupsBySize.isEmpty() ? "" : groupsBySize.first().getKey();
+        largestGroupFirstName = groupsByFirstNames.isEmpty() ? "" : groupsByFirstNames.first().getKey();
+    }
+
+    private static <K> int change(Map<K, Integer> counts, K key, int delta) {
+        int count = counts.getOrDefault(key, 0) + delta;
+        if (count == 0) {
+            counts.remove(key);
+        } else {
+            counts.put(key, count);
+        }
+        return count;
+    }
+
+    private static void reorder(NavigableSet<Map.Entry<String, Integer>> order, String group, int oldValue, int newValue) {
+        if (oldValue == newValue) {
+            return;
+        }
+        if (oldValue > 0) {
+            order.remove(Map.entry(group, oldValue));
+        }
+        if (newValue > 0) {
+            order.add(Map.entry(group, newValue));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.ifmo.rain.lemeshkova.student;
+
+import java.util.*;
+
+/* Immutable mapping of strings to dense codes, ranks[code] is the position of the string in natural order */
+class StringDictionary {
+    private final String[] values;
+    private final Map<String, Integer> codes;
+    private final int[] ranks;
+    private final int[] sortedCodes;
+
+    private StringDictionary(List<String> values, Map<String, Integer> codes) {
+        this.values = values.toArray(new String[0]);
+        this.codes = codes;
+        Integer[] order = new Integer[this.values.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(code -> this.values[code]));
+        this.sortedCodes = new int[order.length];
+        this.ranks = new int[order.length];
+        for (int rank = 0; rank < order.length; rank++) {
+            sortedCodes[rank] = order[rank];
+            ranks[order[rank]] = rank;
+        }
+    }
+
+    /* Code of the value or -1 if there is no such value */
+    int code(String value) {
+        return codes.getOrDefault(value, -1);
+    }
+
+    String get(int code) {
+        return values[code];
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    int rank(int code) {
+        return ranks[code];
+    }
+
+    /* Codes in natural order of their strings */
+    int[] sortedCodes() {
+        return sortedCodes.clone();
+    }
+
+    static class Builder {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        int add(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        StringDictionary build() {
+            return new StringDictionary(values, codes);
+        }
+    }
+}
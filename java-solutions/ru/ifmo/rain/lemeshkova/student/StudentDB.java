@@ -1,9 +1,11 @@
 package ru.ifmo.rain.lemeshkova.student;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.function.ToLongFunction;
 import java.util.stream.*;
 
@@ -25,28 +27,48 @@ public class StudentDB implements AdvancedStudentGroupQuery {
     private final Comparator<Student> STUDENT_NAME_COMPARATOR = Comparator.comparing(Student::getLastName)
             .thenComparing(Student::getFirstName).thenComparing(Student::getId).thenComparing(Student::getGroup);
 
+    private final Comparator<Student> STUDENT_ID_COMPARATOR = Comparator.comparing(Student::getId);
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    public StudentDB() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /*
+     * Queries over at least parallelThreshold students run as parallel streams in the given pool.
+     * Groupings which only feed counts use concurrent collectors, the rest keep encounter order,
+     * so results are the same as sequential ones.
+     */
+    public StudentDB(ForkJoinPool pool, int parallelThreshold) {
+        if (pool == null && parallelThreshold != Integer.MAX_VALUE) throw new NullPointerException("pool");
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
     @Override
     public List<Group> getGroupsByName(Collection<Student> students) {
-        return sortStreamReturnAsList(createGroupStream(groupByGroup(students), STUDENT_NAME_COMPARATOR), Comparator.comparing(Group::getName));
+        return run(students, () -> sortStreamReturnAsList(createGroupStream(groupByGroup(students), STUDENT_NAME_COMPARATOR), Comparator.comparing(Group::getName)));
     }
 
     @Override
     public List<Group> getGroupsById(Collection<Student> students) {
-        return sortStreamReturnAsList(createGroupStream(groupByGroup(students), Comparator.comparing(Student::getId)), Comparator.comparing(Group::getName));
+        return run(students, () -> sortStreamReturnAsList(createGroupStream(groupByGroup(students), STUDENT_ID_COMPARATOR), Comparator.comparing(Group::getName)));
     }
 
     @Override
     public String getLargestGroup(Collection<Student> students) {
-        return getKeyFromOptional(groupByGroup(students).min(GROUP_SIZE_COMPARATOR));
+        return run(students, () -> getKeyFromOptional(groupByGroupUnordered(students).min(GROUP_SIZE_COMPARATOR)));
     }
 
     @Override
     public String getLargestGroupFirstName(Collection<Student> students) {
-        return groupByGroup(students).map
+        return run(students, () -> groupByGroupUnordered(students).map
                 (entry -> new AbstractMap.SimpleEntry<>(
                         entry.getKey(),
                         entry.getValue().stream().map(Student::getFirstName).distinct().count())).
-                min(GROUP_DISTINCT_FIRST_NAME_SIZE_COMPARATOR).map(AbstractMap.SimpleEntry::getKey).orElse("");
+                min(GROUP_DISTINCT_FIRST_NAME_SIZE_COMPARATOR).map(AbstractMap.SimpleEntry::getKey).orElse(""));
     }
 
     @Override
@@ -71,69 +93,124 @@ public class StudentDB implements AdvancedStudentGroupQuery {
 
     @Override
     public Set<String> getDistinctFirstNames(List<Student> students) {
-        return mapStudentsToStringsAsStream(students, Student::getFirstName).collect(toCollection(TreeSet::new));
+        return run(students, () -> mapStudentsToStringsAsStream(students, Student::getFirstName).collect(toCollection(TreeSet::new)));
     }
 
     @Override
     public String getMinStudentFirstName(List<Student> students) {
-        return getValueOrDefault(streamOf(students).min(Comparator.comparingInt(Student::getId)), Student::getFirstName);
+        return run(students, () -> getValueOrDefault(streamOf(students).min(Comparator.comparingInt(Student::getId)), Student::getFirstName));
     }
 
     @Override
     public List<Student> sortStudentsById(Collection<Student> students) {
-        return sortStreamReturnAsList(streamOf(students), Comparator.comparing(Student::getId));
+        return run(students, () -> sortStreamReturnAsList(streamOf(students), STUDENT_ID_COMPARATOR));
     }
 
     @Override
     public List<Student> sortStudentsByName(Collection<Student> students) {
-        return sortStreamReturnAsList(streamOf(students), STUDENT_NAME_COMPARATOR);
+        return run(students, () -> sortStreamReturnAsList(streamOf(students), STUDENT_NAME_COMPARATOR));
     }
 
     @Override
     public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
-        return sortStreamReturnAsList(filterStudentsAsStream(students, getPredicate(Student::getFirstName, name)), STUDENT_NAME_COMPARATOR);
+        return run(students, () -> sortStreamReturnAsList(filterStudentsAsStream(students, getPredicate(Student::getFirstName, name)), STUDENT_NAME_COMPARATOR));
     }
 
     @Override
     public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
-        return sortStreamReturnAsList(filterStudentsAsStream(students, getPredicate(Student::getLastName, name)), STUDENT_NAME_COMPARATOR);
+        return run(students, () -> sortStreamReturnAsList(filterStudentsAsStream(students, getPredicate(Student::getLastName, name)), STUDENT_NAME_COMPARATOR));
     }
 
     @Override
     public List<Student> findStudentsByGroup(Collection<Student> students, String group) {
-        return sortStreamReturnAsList(filterStudentsAsStream(students, groupPredicate(group)), STUDENT_NAME_COMPARATOR);
+        return run(students, () -> sortStreamReturnAsList(filterStudentsAsStream(students, groupPredicate(group)), STUDENT_NAME_COMPARATOR));
     }
 
     @Override
     public Map<String, String> findStudentNamesByGroup(Collection<Student> students, String group) {
-        return filterStudentsAsStream(students, groupPredicate(group)).collect(Collectors.toMap(Student::getLastName, Student::getFirstName, BinaryOperator.minBy(Comparator.naturalOrder())));
+        return run(students, () -> filterStudentsAsStream(students, groupPredicate(group)).collect(Collectors.toMap(Student::getLastName, Student::getFirstName, BinaryOperator.minBy(Comparator.naturalOrder()))));
     }
 
     @Override
     public String getMostPopularName(Collection<Student> students) {
-        return getKeyFromOptional(students.stream().collect(groupingBy(this::getStudentFullName,
-                mapping(Student::getGroup, toSet()))).entrySet().stream().max(Comparator.comparing(
-                (Map.Entry<String, Set<String>> x) -> x.getValue().size()).thenComparing(Map.Entry::getKey)));
+        return run(students, () -> getKeyFromOptional((isParallel(students)
+                ? students.parallelStream().collect(groupingByConcurrent(this::getStudentFullName, mapping(Student::getGroup, toSet())))
+                : students.stream().collect(groupingBy(this::getStudentFullName, mapping(Student::getGroup, toSet()))))
+                .entrySet().stream().max(Comparator.comparing(
+                (Map.Entry<String, Set<String>> x) -> x.getValue().size()).thenComparing(Map.Entry::getKey))));
+    }
+
+    /*
+     * Pages of the sorted queries: limit students starting from offset, selected by a bounded heap
+     * of offset + limit students instead of a full sort. Equal students keep collection order, as in the full sort.
+     */
+    public List<Student> sortStudentsById(Collection<Student> students, int offset, int limit) {
+        return selectPage(students, x -> true, STUDENT_ID_COMPARATOR, offset, limit);
+    }
+
+    public List<Student> sortStudentsByName(Collection<Student> students, int offset, int limit) {
+        return selectPage(students, x -> true, STUDENT_NAME_COMPARATOR, offset, limit);
+    }
+
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name, int offset, int limit) {
+        return selectPage(students, getPredicate(Student::getFirstName, name), STUDENT_NAME_COMPARATOR, offset, limit);
+    }
+
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name, int offset, int limit) {
+        return selectPage(students, getPredicate(Student::getLastName, name), STUDENT_NAME_COMPARATOR, offset, limit);
+    }
+
+    public List<Student> findStudentsByGroup(Collection<Student> students, String group, int offset, int limit) {
+        return selectPage(students, groupPredicate(group), STUDENT_NAME_COMPARATOR, offset, limit);
+    }
+
+    /*
+     * Lazy sorted queries: the first pageSize students are selected like a page. Reading past them
+     * heapifies the rest of the matching students once, in linear time, and takes them from the heap one by one.
+     * The collection must not change while the stream is used.
+     */
+    public Stream<Student> streamStudentsById(Collection<Student> students, int pageSize) {
+        return streamPages(students, x -> true, STUDENT_ID_COMPARATOR, pageSize);
+    }
+
+    public Stream<Student> streamStudentsByName(Collection<Student> students, int pageSize) {
+        return streamPages(students, x -> true, STUDENT_NAME_COMPARATOR, pageSize);
+    }
+
+    public Stream<Student> streamStudentsByFirstName(Collection<Student> students, String name, int pageSize) {
+        return streamPages(students, getPredicate(Student::getFirstName, name), STUDENT_NAME_COMPARATOR, pageSize);
+    }
+
+    public Stream<Student> streamStudentsByLastName(Collection<Student> students, String name, int pageSize) {
+        return streamPages(students, getPredicate(Student::getLastName, name), STUDENT_NAME_COMPARATOR, pageSize);
+    }
+
+    public Stream<Student> streamStudentsByGroup(Collection<Student> students, String group, int pageSize) {
+        return streamPages(students, groupPredicate(group), STUDENT_NAME_COMPARATOR, pageSize);
     }
 
     @Override
     public List<String> getFirstNames(Collection<Student> students, int[] indices) {
-        return getByIndices(new ArrayList<>(students), indices, Student::getFirstName);
+        return getByIndices(asList(students), indices, Student::getFirstName);
     }
 
     @Override
     public List<String> getLastNames(Collection<Student> students, int[] indices) {
-        return getByIndices(new ArrayList<>(students), indices, Student::getLastName);
+        return getByIndices(asList(students), indices, Student::getLastName);
     }
 
     @Override
     public List<String> getGroups(Collection<Student> students, int[] indices) {
-        return getByIndices(new ArrayList<>(students), indices, Student::getGroup);
+        return getByIndices(asList(students), indices, Student::getGroup);
     }
 
     @Override
     public List<String> getFullNames(Collection<Student> students, int[] indices) {
-        return getByIndices(new ArrayList<>(students), indices, this::getStudentFullName);
+        return getByIndices(asList(students), indices, this::getStudentFullName);
+    }
+
+    private List<Student> asList(Collection<Student> students) {
+        return students instanceof List && students instanceof RandomAccess ? (List<Student>) students : new ArrayList<>(students);
     }
 
     private List<String> getByIndices(List<Student> students, int[] indices, Function<Student, String> functionToCollect) {
@@ -144,8 +221,16 @@ public class StudentDB implements AdvancedStudentGroupQuery {
         return student.getFirstName() + " " + student.getLastName();
     }
 
+    private boolean isParallel(Collection<Student> students) {
+        return students.size() >= parallelThreshold;
+    }
+
+    private <R> R run(Collection<Student> students, Supplier<R> query) {
+        return isParallel(students) ? pool.submit(query::get).join() : query.get();
+    }
+
     private Stream<Student> streamOf(Collection<Student> students) {
-        return students.stream();
+        return isParallel(students) ? students.parallelStream() : students.stream();
     }
 
     private Predicate<? super Student> getPredicate(Function<Student, String> studentMethod, String valueToCompare) {
@@ -157,11 +242,11 @@ public class StudentDB implements AdvancedStudentGroupQuery {
     }
 
     private Stream<String> mapStudentsToStringsAsStream(Collection<Student> collection, Function<Student, String> function) {
-        return collection.stream().map(function);
+        return streamOf(collection).map(function);
     }
 
     private List<String> mapStudentsToStringAsList(Collection<Student> collection, Function<Student, String> function) {
-        return mapStudentsToStringsAsStream(collection, function).collect(Collectors.toList());
+        return run(collection, () -> mapStudentsToStringsAsStream(collection, function).collect(Collectors.toList()));
     }
 
     private Stream<Student> filterStudentsAsStream(Collection<Student> students, Predicate<? super Student> predicate) {
@@ -176,11 +261,207 @@ public class StudentDB implements AdvancedStudentGroupQuery {
         return streamOf(students).collect(groupingBy(Student::getGroup)).entrySet().stream();
     }
 
+    /* Order of students inside a group is unspecified in parallel mode */
+    private Stream<Map.Entry<String, List<Student>>> groupByGroupUnordered(Collection<Student> students) {
+        if (isParallel(students)) {
+            return streamOf(students).collect(groupingByConcurrent(Student::getGroup)).entrySet().stream();
+        }
+        return groupByGroup(students);
+    }
+
     private Stream<Group> createGroupStream(Stream<Map.Entry<String, List<Student>>> stream, Comparator<Student> studentGroupComparator) {
         return stream.map((Map.Entry<String, List<Student>> x) ->
                 new Group(x.getKey(), x.getValue().stream().sorted(studentGroupComparator).collect(toList())));
     }
 
+    private List<Student> selectPage(Collection<Student> students, Predicate<? super Student> predicate,
+                                     Comparator<Student> comparator, int offset, int limit) {
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("Negative offset or limit");
+        List<IndexedStudent> selected = select(students, predicate, comparator,
+                (int) Math.min(Integer.MAX_VALUE, (long) offset + limit));
+        return selected.subList(Math.min(offset, selected.size()), selected.size()).stream()
+                .map(IndexedStudent::getStudent).collect(toList());
+    }
+
+    private Stream<Student> streamPages(Collection<Student> students, Predicate<? super Student> predicate,
+                                        Comparator<Student> comparator, int pageSize) {
+        if (pageSize <= 0) throw new IllegalArgumentException("Page size should be positive");
+        Iterator<Student> iterator = new Iterator<>() {
+            private Iterator<IndexedStudent> page = null;
+            private IndexedStudent last = null;
+            private StudentHeap rest = null;
+
+            @Override
+            public boolean hasNext() {
+                if (page == null) {
+                    List<IndexedStudent> first = select(students, predicate, comparator, pageSize);
+                    page = first.iterator();
+                    last = first.size() == pageSize ? first.get(pageSize - 1) : null;
+                }
+                if (page.hasNext()) {
+                    return true;
+                }
+                if (last != null) {
+                    rest = new StudentHeap(selectAfter(students, predicate, comparator, last), order(comparator));
+                    last = null;
+                }
+                return rest != null && !rest.isEmpty();
+            }
+
+            @Override
+            public Student next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return (page.hasNext() ? page.next() : rest.poll()).getStudent();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /* First count matching students in comparator order, ties broken by position in collection */
+    private List<IndexedStudent> select(Collection<Student> students, Predicate<? super Student> predicate,
+                                        Comparator<Student> comparator, int count) {
+        Comparator<IndexedStudent> order = order(comparator);
+        if (count == 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<IndexedStudent> heap = new PriorityQueue<>(Math.min(count, 1024) + 1, order.reversed());
+        int index = 0;
+        for (Student student : students) {
+            int position = index++;
+            if (!predicate.test(student)) continue;
+            if (heap.size() < count) {
+                heap.add(new IndexedStudent(student, position));
+            } else if (compare(comparator, student, position, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(new IndexedStudent(student, position));
+            }
+        }
+        List<IndexedStudent> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+
+    /* Matching students after the given one in comparator order, unordered */
+    private List<IndexedStudent> selectAfter(Collection<Student> students, Predicate<? super Student> predicate,
+                                             Comparator<Student> comparator, IndexedStudent after) {
+        List<IndexedStudent> result = new ArrayList<>();
+        int index = 0;
+        for (Student student : students) {
+            int position = index++;
+            if (predicate.test(student) && compare(comparator, student, position, after) > 0) {
+                result.add(new IndexedStudent(student, position));
+            }
+        }
+        return result;
+    }
+
+    private static Comparator<IndexedStudent> order(Comparator<Student> comparator) {
+        return (a, b) -> compare(comparator, a.getStudent(), a.getIndex(), b);
+    }
+
+    private static int compare(Comparator<Student> comparator, Student student, int index, IndexedStudent other) {
+        int cmp = comparator.compare(student, other.getStudent());
+        return cmp != 0 ? cmp : Integer.compare(index, other.getIndex());
+    }
+
+    /*
+     * Binary min-heap built in linear time, PriorityQueue can heapify only naturally ordered elements.
+     * Popping costs about twice the comparisons of sorting, so once a 1/SORT_FRACTION of the students
+     * is popped the rest are sorted and returned in order.
+     */
+    private static class StudentHeap {
+        private static final int SORT_FRACTION = 8;
+
+        private final IndexedStudent[] heap;
+        private final Comparator<IndexedStudent> order;
+        private int size;
+        private int polled;
+        private boolean sorted;
+        private int next;
+
+        StudentHeap(List<IndexedStudent> students, Comparator<IndexedStudent> order) {
+            this.heap = students.toArray(new IndexedStudent[0]);
+            this.order = order;
+            this.size = heap.length;
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        IndexedStudent poll() {
+            if (!sorted && polled >= heap.length / SORT_FRACTION) {
+                Arrays.sort(heap, 0, size, order);
+                sorted = true;
+            }
+            if (sorted) {
+                size--;
+                return heap[next++];
+            }
+            polled++;
+            return pollTop();
+        }
+
+        /* Moves the hole at the top down to a leaf by smaller children and sifts the last student up from there */
+        private IndexedStudent pollTop() {
+            IndexedStudent top = heap[0];
+            IndexedStudent student = heap[--size];
+            heap[size] = null;
+            if (size > 0) {
+                int i = 0;
+                for (int child = 1; child < size; child = 2 * i + 1) {
+                    if (child + 1 < size && order.compare(heap[child + 1], heap[child]) < 0) {
+                        child++;
+                    }
+                    heap[i] = heap[child];
+                    i = child;
+                }
+                while (i > 0 && order.compare(student, heap[(i - 1) / 2]) < 0) {
+                    heap[i] = heap[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                heap[i] = student;
+            }
+            return top;
+        }
+
+        private void siftDown(int i) {
+            IndexedStudent student = heap[i];
+            for (int child = 2 * i + 1; child < size; child = 2 * i + 1) {
+                if (child + 1 < size && order.compare(heap[child + 1], heap[child]) < 0) {
+                    child++;
+                }
+                if (order.compare(student, heap[child]) <= 0) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = student;
+        }
+    }
+
+    private static class IndexedStudent {
+        private final Student student;
+        private final int index;
+
+        IndexedStudent(Student student, int index) {
+            this.student = student;
+            this.index = index;
+        }
+
+        Student getStudent() {
+            return student;
+        }
+
+        int getIndex() {
+            return index;
+        }
+    }
+
     private <V> String getKeyFromOptional(Optional<Map.Entry<String, V>> optionalEntry) {
         return getValueOrDefault(optionalEntry, Map.Entry::getKey);
     }
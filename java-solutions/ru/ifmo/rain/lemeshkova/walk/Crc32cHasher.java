@@ -0,0 +1,28 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+class Crc32cHasher implements FileHasher {
+    private final CRC32C crc = new CRC32C();
+
+    @Override
+    public void reset() {
+        crc.reset();
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+        crc.update(bytes, offset, length);
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        crc.update(buffer);
+    }
+
+    @Override
+    public String digest() {
+        return String.format("%08x", crc.getValue());
+    }
+}
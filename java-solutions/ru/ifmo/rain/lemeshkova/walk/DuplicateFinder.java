@@ -0,0 +1,181 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * Finds files with equal contents. Files are grouped by size first, only files sharing
+ * a size are hashed, and files sharing a hash are compared byte by byte.
+ * Each group is written as its files in walk order followed by an empty line.
+ * A file reached by several paths (listed twice, or through a link) is kept once, by its first path.
+ * Hash groups are found by a table keyed on size and digest prefix, groups whose keys collide
+ * are chained and told apart by the full size and digest.
+ */
+class DuplicateFinder {
+    private static final int COMPARE_BUFFER_SIZE = 64 << 10;
+
+    private final HashReader hashReader;
+    private final HashCache cache;
+    private final boolean offHeap;
+    private final LongGroupTable sizeTable;
+    private final List<List<Path>> sizeGroups = new ArrayList<>();
+    private final List<Long> sizes = new ArrayList<>();
+    private long files;
+    private long hashed;
+
+    DuplicateFinder(HashReader hashReader, HashCache cache, boolean offHeap) {
+        this.hashReader = hashReader;
+        this.cache = cache;
+        this.offHeap = offHeap;
+        this.sizeTable = new LongGroupTable(offHeap);
+    }
+
+    void add(Path file, BasicFileAttributes attributes) throws IOException {
+        long size;
+        try {
+            size = attributes != null ? attributes.size() : Files.size(file);
+        } catch (IOException e) {
+            System.out.println("Cannot read size of file " + file + ": " + e.getMessage());
+            return;
+        }
+        files++;
+        int group = sizeTable.putIfAbsent(size, sizeGroups.size());
+        if (group < 0) {
+            group = sizeGroups.size();
+            sizeGroups.add(new ArrayList<>(1));
+            sizes.add(size);
+        }
+        sizeGroups.get(group).add(file);
+    }
+
+    void writeDuplicates(WalkWriter writer) throws IOException {
+        LongGroupTable hashTable = new LongGroupTable(offHeap);
+        List<List<Path>> hashGroups = new ArrayList<>();
+        List<String> digests = new ArrayList<>();
+        List<Long> groupSizes = new ArrayList<>();
+        List<Integer> collisions = new ArrayList<>();
+        for (int i = 0; i < sizeGroups.size(); i++) {
+            if (sizeGroups.get(i).size() < 2) {
+                continue;
+            }
+            List<Path> group = distinctFiles(sizeGroups.get(i));
+            if (group.size() < 2) {
+                continue;
+            }
+            for (Path file : group) {
+                String digest;
+                try {
+                    digest = RecursiveWalk.readHash(file, null, hashReader, cache);
+                } catch (IOException e) {
+                    System.out.println("Cannot hash file " + file + ": " + e.getMessage());
+                    continue;
+                }
+                hashed++;
+                long size = sizes.get(i);
+                int index = hashTable.putIfAbsent(key(size, digest), hashGroups.size());
+                int previous = -1;
+                while (index >= 0 && (groupSizes.get(index) != size || !digests.get(index).equals(digest))) {
+                    previous = index;
+                    index = collisions.get(index);
+                }
+                if (index < 0) {
+                    index = hashGroups.size();
+                    if (previous >= 0) {
+                        collisions.set(previous, index);
+                    }
+                    hashGroups.add(new ArrayList<>(2));
+                    digests.add(digest);
+                    groupSizes.add(size);
+                    collisions.add(-1);
+                }
+                hashGroups.get(index).add(file);
+            }
+        }
+        long duplicateGroups = 0;
+        for (int i = 0; i < hashGroups.size(); i++) {
+            for (List<Path> duplicates : splitByContents(hashGroups.get(i))) {
+                duplicateGroups++;
+                for (Path file : duplicates) {
+                    RecursiveWalk.writeResult(writer, file.toString(), digests.get(i));
+                }
+                writer.endRecord();
+            }
+        }
+        System.out.println(String.format("Duplicates: %d groups among %d files, %d files hashed",
+                duplicateGroups, files, hashed));
+    }
+
+    private static List<Path> distinctFiles(List<Path> group) {
+        Set<Path> realPaths = new HashSet<>();
+        List<Path> result = new ArrayList<>(group.size());
+        for (Path file : group) {
+            try {
+                if (realPaths.add(file.toRealPath())) {
+                    result.add(file);
+                }
+            } catch (IOException e) {
+                System.out.println("Cannot resolve file " + file + ": " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private static List<List<Path>> splitByContents(List<Path> candidates) throws IOException {
+        List<List<Path>> result = new ArrayList<>();
+        List<Path> remaining = candidates;
+        while (remaining.size() > 1) {
+            Path first = remaining.get(0);
+            List<Path> equal = new ArrayList<>();
+            List<Path> different = new ArrayList<>();
+            equal.add(first);
+            for (Path file : remaining.subList(1, remaining.size())) {
+                if (sameContents(first, file)) {
+                    equal.add(file);
+                } else {
+                    different.add(file);
+                }
+            }
+            if (equal.size() > 1) {
+                result.add(equal);
+            }
+            remaining = different;
+        }
+        return result;
+    }
+
+    private static boolean sameContents(Path first, Path second) {
+        try (InputStream firstInput = Files.newInputStream(first);
+             InputStream secondInput = Files.newInputStream(second)) {
+            byte[] firstBuffer = new byte[COMPARE_BUFFER_SIZE];
+            byte[] secondBuffer = new byte[COMPARE_BUFFER_SIZE];
+            while (true) {
+                int read = firstInput.readNBytes(firstBuffer, 0, firstBuffer.length);
+                if (secondInput.readNBytes(secondBuffer, 0, secondBuffer.length) != read) {
+                    return false;
+                }
+                if (read == 0) {
+                    return true;
+                }
+                if (!Arrays.equals(firstBuffer, 0, read, secondBuffer, 0, read)) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot compare " + first + " and " + second + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static long key(long size, String digest) {
+        long hash = Long.parseUnsignedLong(digest.substring(0, Math.min(16, digest.length())), 16);
+        return hash * 31 + size;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Incremental hash of a file contents. Update methods consume the given block
+ * without allocating, so a single hasher may be reused for many files after reset.
+ */
+interface FileHasher {
+    void reset();
+
+    void update(byte[] bytes, int offset, int length);
+
+    void update(ByteBuffer buffer);
+
+    String digest();
+}
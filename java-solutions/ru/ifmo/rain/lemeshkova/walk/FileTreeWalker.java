@@ -0,0 +1,22 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/*
+ * Enumerates regular files under a root in depth-first order. Unreadable directories
+ * are reported and skipped, exceptions thrown by the consumer stop the walk.
+ */
+interface FileTreeWalker extends Closeable {
+    void walk(Path root, FileConsumer consumer) throws IOException;
+
+    @Override
+    default void close() {
+    }
+
+    interface FileConsumer {
+        void accept(Path file, BasicFileAttributes attributes) throws IOException;
+    }
+}
@@ -0,0 +1,48 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+class Fnv32Hasher implements FileHasher {
+    private static final int OFFSET_BASIS = 0x811c9dc5;
+    private static final int PRIME = 0x01000193;
+
+    private int h = OFFSET_BASIS;
+
+    @Override
+    public void reset() {
+        h = OFFSET_BASIS;
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+        int hash = h;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash * PRIME) ^ (bytes[i] & 0xff);
+        }
+        h = hash;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int hash = h;
+        while (buffer.remaining() >= Long.BYTES) {
+            long word = buffer.getLong();
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                hash = (hash * PRIME) ^ ((int) (word >>> shift) & 0xff);
+            }
+        }
+        while (buffer.hasRemaining()) {
+            hash = (hash * PRIME) ^ (buffer.get() & 0xff);
+        }
+        h = hash;
+        buffer.order(order);
+    }
+
+    @Override
+    public String digest() {
+        return String.format("%08x", h);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+class Fnv64Hasher implements FileHasher {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long h = OFFSET_BASIS;
+
+    @Override
+    public void reset() {
+        h = OFFSET_BASIS;
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+        long hash = h;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash * PRIME) ^ (bytes[i] & 0xff);
+        }
+        h = hash;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        long hash = h;
+        while (buffer.remaining() >= Long.BYTES) {
+            long word = buffer.getLong();
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                hash = (hash * PRIME) ^ ((word >>> shift) & 0xff);
+            }
+        }
+        while (buffer.hasRemaining()) {
+            hash = (hash * PRIME) ^ (buffer.get() & 0xff);
+        }
+        h = hash;
+        buffer.order(order);
+    }
+
+    @Override
+    public String digest() {
+        return String.format("%016x", h);
+    }
+}
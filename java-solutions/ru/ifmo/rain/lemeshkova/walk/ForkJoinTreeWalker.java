@@ -0,0 +1,142 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Walks a tree listing directories concurrently in a fork-join pool. When a directory
+ * is visited, listings of its subdirectories are submitted ahead, so they are read
+ * while the caller processes the preceding entries. At most PENDING_PER_THREAD listings per thread
+ * are submitted ahead of the caller, plus the next listing of every directory being visited,
+ * so pending work depends on tree depth but not on its width. Entries are consumed in directory
+ * stream order, which gives the same file order as Files.walk.
+ */
+class ForkJoinTreeWalker implements FileTreeWalker {
+    private static final int PENDING_PER_THREAD = 8;
+
+    private final ForkJoinPool pool;
+    private final int maxPending;
+    private int pending;
+
+    ForkJoinTreeWalker(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.maxPending = parallelism * PENDING_PER_THREAD;
+    }
+
+    @Override
+    public void walk(Path root, FileConsumer consumer) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            System.out.println("Cannot read files in directory " + root.toString() + ": " + e.getMessage());
+            return;
+        }
+        visit(new Entry(root, attributes), attributes.isDirectory() ? submit(root) : null, consumer);
+    }
+
+    private void visit(Entry entry, Listing listing, FileConsumer consumer) throws IOException {
+        if (entry.attributes.isDirectory()) {
+            visitDirectory(listing, consumer);
+        } else if (entry.attributes.isRegularFile()) {
+            consumer.accept(entry.path, entry.attributes);
+        } else if (entry.attributes.isSymbolicLink() && Files.isRegularFile(entry.path)) {
+            consumer.accept(entry.path, null);
+        }
+    }
+
+    private void visitDirectory(Listing listing, FileConsumer consumer) throws IOException {
+        List<Entry> entries = listing.join();
+        pending--;
+        if (listing.error != null) {
+            System.out.println("Cannot read files in directory " + listing.directory.toString() + ": "
+                    + listing.error.getMessage());
+            return;
+        }
+        List<Path> directories = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.attributes.isDirectory()) {
+                directories.add(entry.path);
+            }
+        }
+        Queue<Listing> subdirectories = new ArrayDeque<>();
+        int submitted = submitAhead(directories, 0, subdirectories);
+        try {
+            for (Entry entry : entries) {
+                if (entry.attributes.isDirectory()) {
+                    submitted = submitAhead(directories, submitted, subdirectories);
+                    visit(entry, subdirectories.remove(), consumer);
+                } else {
+                    visit(entry, null, consumer);
+                }
+            }
+        } finally {
+            subdirectories.forEach(task -> task.cancel(true));
+            pending -= subdirectories.size();
+        }
+    }
+
+    /* Submits listings while under the limit, but always at least the next one to visit */
+    private int submitAhead(List<Path> directories, int submitted, Queue<Listing> subdirectories) {
+        while (submitted < directories.size() && (subdirectories.isEmpty() || pending < maxPending)) {
+            subdirectories.add(submit(directories.get(submitted++)));
+        }
+        return submitted;
+    }
+
+    private Listing submit(Path directory) {
+        Listing listing = new Listing(directory);
+        pool.execute(listing);
+        pending++;
+        return listing;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private static class Listing extends RecursiveTask<List<Entry>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private IOException error;
+
+        private Listing(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected List<Entry> compute() {
+            List<Entry> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path path : stream) {
+                    entries.add(new Entry(path, Files.readAttributes(path, BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS)));
+                }
+            } catch (IOException e) {
+                error = e;
+            } catch (DirectoryIteratorException e) {
+                error = e.getCause();
+            }
+            return entries;
+        }
+    }
+
+    private static class Entry {
+        private final Path path;
+        private final BasicFileAttributes attributes;
+
+        private Entry(Path path, BasicFileAttributes attributes) {
+            this.path = path;
+            this.attributes = attributes;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.util.function.Supplier;
+
+enum HashAlgorithm {
+    FNV32("fnv32", 4, Fnv32Hasher::new),
+    FNV64("fnv64", 8, Fnv64Hasher::new),
+    CRC32C("crc32c", 4, Crc32cHasher::new),
+    XXHASH64("xxhash64", 8, XxHash64Hasher::new),
+    SHA256("sha256", 32, Sha256Hasher::new);
+
+    private final String algorithmName;
+    private final String errorHash;
+    private final Supplier<FileHasher> factory;
+
+    HashAlgorithm(String algorithmName, int digestLength, Supplier<FileHasher> factory) {
+        this.algorithmName = algorithmName;
+        this.errorHash = "0".repeat(2 * digestLength);
+        this.factory = factory;
+    }
+
+    FileHasher newHasher() {
+        return factory.get();
+    }
+
+    String algorithmName() {
+        return algorithmName;
+    }
+
+    String errorHash() {
+        return errorHash;
+    }
+
+    static HashAlgorithm forName(String name) {
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.algorithmName.equals(name)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,187 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Persistent cache of file hashes between walks. An entry is valid while the file keeps
+ * its size, modification time and file key. Every entry remembers the last run that used it,
+ * entries unused for the longest time are evicted when the cache exceeds its size.
+ */
+class HashCache {
+    static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+
+    private static final int MAGIC = 0x57484331;
+    private static final int VERSION = 2;
+    /* Path length, two longs, two empty UTF strings and a long */
+    private static final int MIN_ENTRY_BYTES = Integer.BYTES + 3 * Long.BYTES + 2 * Short.BYTES;
+
+    private final Path file;
+    private final String algorithm;
+    private final int maxEntries;
+    private final long generation;
+    private final Map<String, Entry> entries;
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    private HashCache(Path file, String algorithm, int maxEntries, long generation, Map<String, Entry> entries) {
+        this.file = file;
+        this.algorithm = algorithm;
+        this.maxEntries = maxEntries;
+        this.generation = generation;
+        this.entries = entries;
+    }
+
+    /* An unreadable or corrupt cache is reported and replaced by an empty one */
+    static HashCache load(Path file, int maxEntries, String algorithm) {
+        Map<String, Entry> entries = new ConcurrentHashMap<>();
+        long generation = 0;
+        if (Files.exists(file)) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                long fileSize = Files.size(file);
+                if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                    throw new IOException("unsupported format");
+                }
+                String cachedAlgorithm = input.readUTF();
+                if (!cachedAlgorithm.equals(algorithm)) {
+                    throw new IOException("hashes were computed by " + cachedAlgorithm);
+                }
+                generation = input.readLong();
+                int count = input.readInt();
+                if (count < 0 || count > fileSize / MIN_ENTRY_BYTES) {
+                    throw new IOException("invalid entry count " + count);
+                }
+                for (int i = 0; i < count; i++) {
+                    String path = readString(input, fileSize);
+                    entries.put(path, new Entry(input.readLong(), input.readLong(), input.readUTF(), input.readUTF(),
+                            input.readLong()));
+                }
+            } catch (EOFException e) {
+                System.out.println("Ignoring hash cache " + file + ": unexpected end of file");
+                entries.clear();
+                generation = 0;
+            } catch (IOException e) {
+                System.out.println("Ignoring hash cache " + file + ": " + e.getMessage());
+                entries.clear();
+                generation = 0;
+            }
+        }
+        return new HashCache(file, algorithm, maxEntries, generation + 1, entries);
+    }
+
+    String lookup(String path, BasicFileAttributes attributes) {
+        lookups.incrementAndGet();
+        Entry entry = entries.get(path);
+        if (entry == null || !entry.matches(attributes)) {
+            return null;
+        }
+        hits.incrementAndGet();
+        if (entry.generation != generation) {
+            entries.put(path, entry.touch(generation));
+        }
+        return entry.hash;
+    }
+
+    void store(String path, BasicFileAttributes attributes, String hash) {
+        entries.put(path, new Entry(attributes.size(), modificationTime(attributes), fileKey(attributes), hash,
+                generation));
+    }
+
+    void save() throws IOException {
+        List<Map.Entry<String, Entry>> saved = new ArrayList<>(entries.entrySet());
+        if (saved.size() > maxEntries) {
+            saved.sort(Comparator.comparingLong((Map.Entry<String, Entry> x) -> x.getValue().generation).reversed());
+            saved = saved.subList(0, maxEntries);
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeUTF(algorithm);
+                output.writeLong(generation);
+                output.writeInt(saved.size());
+                for (Map.Entry<String, Entry> x : saved) {
+                    Entry entry = x.getValue();
+                    writeString(output, x.getKey());
+                    output.writeLong(entry.size);
+                    output.writeLong(entry.modificationTime);
+                    output.writeUTF(entry.fileKey);
+                    output.writeUTF(entry.hash);
+                    output.writeLong(entry.generation);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    String statistics() {
+        long lookupCount = lookups.get();
+        long hitCount = hits.get();
+        return String.format("Hash cache: %d hits of %d lookups (%.1f%%)", hitCount, lookupCount,
+                lookupCount == 0 ? 0.0 : 100.0 * hitCount / lookupCount);
+    }
+
+    private static String readString(DataInput input, long limit) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > limit) {
+            throw new IOException("invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutput output, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static long modificationTime(BasicFileAttributes attributes) {
+        return attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    private static String fileKey(BasicFileAttributes attributes) {
+        Object key = attributes.fileKey();
+        return key == null ? "" : key.toString();
+    }
+
+    private static class Entry {
+        private final long size;
+        private final long modificationTime;
+        private final String fileKey;
+        private final String hash;
+        private final long generation;
+
+        private Entry(long size, long modificationTime, String fileKey, String hash, long generation) {
+            this.size = size;
+            this.modificationTime = modificationTime;
+            this.fileKey = fileKey;
+            this.hash = hash;
+            this.generation = generation;
+        }
+
+        private boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && modificationTime == modificationTime(attributes)
+                    && fileKey.equals(fileKey(attributes));
+        }
+
+        private Entry touch(long generation) {
+            return new Entry(size, modificationTime, fileKey, hash, generation);
+        }
+    }
+}
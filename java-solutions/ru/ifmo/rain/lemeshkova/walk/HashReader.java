@@ -0,0 +1,99 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Hashes file contents with the given algorithm choosing the read strategy by file size:
+ * small files are read into a heap array, medium ones through a reusable direct buffer
+ * and very large ones are mapped into memory window by window.
+ * Instances keep their buffers and hasher between calls and must not be shared between threads.
+ */
+class HashReader {
+    static final long DEFAULT_DIRECT_THRESHOLD = 1L << 20;
+    static final long DEFAULT_MAPPED_THRESHOLD = 256L << 20;
+
+    private static final int HEAP_BUFFER_SIZE = 8 << 10;
+    private static final int DIRECT_BUFFER_SIZE = 1 << 20;
+    private static final long MAPPED_WINDOW_SIZE = 64L << 20;
+
+    private final long directThreshold;
+    private final long mappedThreshold;
+    private final HashAlgorithm algorithm;
+    private final FileHasher hasher;
+    private final byte[] heapBuffer = new byte[HEAP_BUFFER_SIZE];
+    private ByteBuffer directBuffer;
+
+    HashReader(HashAlgorithm algorithm, long directThreshold, long mappedThreshold) {
+        this.algorithm = algorithm;
+        this.hasher = algorithm.newHasher();
+        this.directThreshold = directThreshold;
+        this.mappedThreshold = mappedThreshold;
+    }
+
+    HashReader() {
+        this(HashAlgorithm.FNV32, DEFAULT_DIRECT_THRESHOLD, DEFAULT_MAPPED_THRESHOLD);
+    }
+
+    String hash(Path file) throws IOException {
+        hasher.reset();
+        read(file, hasher);
+        return hasher.digest();
+    }
+
+    String errorHash() {
+        return algorithm.errorHash();
+    }
+
+    void read(Path file, FileHasher hasher) throws IOException {
+        long size = Files.size(file);
+        if (size < directThreshold) {
+            readHeap(file, hasher);
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long position = size >= mappedThreshold ? readMapped(channel, size, hasher) : 0;
+                readDirect(channel, position, hasher);
+            }
+        }
+    }
+
+    private void readHeap(Path file, FileHasher hasher) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            int read;
+            while ((read = input.read(heapBuffer)) >= 0) {
+                hasher.update(heapBuffer, 0, read);
+            }
+        }
+    }
+
+    private void readDirect(FileChannel channel, long position, FileHasher hasher) throws IOException {
+        if (directBuffer == null) {
+            directBuffer = ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        }
+        directBuffer.clear();
+        int read;
+        while ((read = channel.read(directBuffer, position)) >= 0) {
+            position += read;
+            directBuffer.flip();
+            hasher.update(directBuffer);
+            directBuffer.clear();
+        }
+    }
+
+    private static long readMapped(FileChannel channel, long size, FileHasher hasher) throws IOException {
+        long position = 0;
+        while (position < size) {
+            long windowSize = Math.min(MAPPED_WINDOW_SIZE, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            hasher.update(window);
+            position += windowSize;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,81 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/*
+ * Open-addressing map from long keys to non-negative int values with linear probing.
+ * Keys and values are kept in primitive buffers, which are allocated outside the heap
+ * for off-heap tables.
+ */
+class LongGroupTable {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int NO_VALUE = -1;
+
+    private final boolean offHeap;
+    private LongBuffer keys;
+    private IntBuffer values;
+    private int capacity;
+    private int size;
+
+    LongGroupTable(boolean offHeap) {
+        this.offHeap = offHeap;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int putIfAbsent(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        int slot = slot(key);
+        for (; values.get(slot) != NO_VALUE; slot = (slot + 1) & (capacity - 1)) {
+            if (keys.get(slot) == key) {
+                return values.get(slot);
+            }
+        }
+        keys.put(slot, key);
+        values.put(slot, value);
+        if (++size * 2 > capacity) {
+            resize();
+        }
+        return NO_VALUE;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (capacity - 1);
+    }
+
+    private void resize() {
+        LongBuffer oldKeys = keys;
+        IntBuffer oldValues = values;
+        int oldCapacity = capacity;
+        allocate(capacity * 2);
+        for (int i = 0; i < oldCapacity; i++) {
+            int value = oldValues.get(i);
+            if (value != NO_VALUE) {
+                int slot = slot(oldKeys.get(i));
+                while (values.get(slot) != NO_VALUE) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys.put(slot, oldKeys.get(i));
+                values.put(slot, value);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        if (offHeap) {
+            keys = ByteBuffer.allocateDirect(capacity * Long.BYTES).asLongBuffer();
+            values = ByteBuffer.allocateDirect(capacity * Integer.BYTES).asIntBuffer();
+        } else {
+            keys = LongBuffer.allocate(capacity);
+            values = IntBuffer.allocate(capacity);
+        }
+        for (int i = 0; i < capacity; i++) {
+            values.put(i, NO_VALUE);
+        }
+    }
+}
@@ -2,17 +2,18 @@ package ru.ifmo.rain.lemeshkova.walk;
 
 import java.io.*;
 import java.nio.file.*;
-import java.util.stream.Stream;
+import java.nio.file.attribute.BasicFileAttributes;
 
 public class RecursiveWalk {
-    final static String errorHash = "00000000";
+    private static final ThreadLocal<HashReader> DEFAULT_READER = ThreadLocal.withInitial(HashReader::new);
 
     public static void main(String[] args) {
         try {
 
             if (args == null || args.length < 2 || args[0] == null || args[1] == null) {
-                throw new ExitException("Invalid usage or arguments.%nUsage format: \"java RecursiveWalk <input file> <output file>\"");
+                throw new ExitException("Invalid usage or arguments." + System.lineSeparator() + WalkOptions.USAGE);
             }
+            WalkOptions options = WalkOptions.parse(args, 2);
 
             Path inputFilePath;
             try {
@@ -47,29 +48,25 @@ public class RecursiveWalk {
                 }
             }
 
+            WalkCheckpoint.Position start = options.loadCheckpoint();
+            HashCache cache = options.cachePath == null ? null : HashCache.load(options.cachePath, options.cacheSize,
+                    options.algorithm.algorithmName());
             try (BufferedReader reader = Files.newBufferedReader(inputFilePath)) {
-                try (BufferedWriter writer = Files.newBufferedWriter(outputFilePath)) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        try {
-                            Path inputPath = Paths.get(line);
-                            if (!Files.exists(inputPath)) {
-                                writeResult(writer, inputPath.toString(), errorHash);
-                            } else {
-                                try (Stream<Path> walk = Files.walk(inputPath)) {
-                                    walk.filter(Files::isRegularFile).forEach(x -> {
-                                        try {
-                                            writeResult(writer, x.toString(), getHashFile(x));
-                                        } catch (IOException e) {
-                                            System.out.println("Cannot write hash result of file " + x.toString() + ": " + e.getMessage());
-                                        }
-                                    });
-                                } catch (IOException e) {
-                                    System.out.println("Cannot read files in directory " + inputPath.toString() + ": " + e.getMessage());
-                                }
-                            }
-                        } catch (InvalidPathException ex) {
-                            writeResult(writer, line, errorHash);
+                try (WalkWriter writer = options.openWriter(outputFilePath, start)) {
+                    if (options.watch) {
+                        walkAndWatch(reader, writer, options, cache);
+                    } else if (options.dedup) {
+                        findDuplicates(reader, writer, options, cache);
+                    } else {
+                        WalkCheckpoint checkpoint = options.checkpointPath == null ? null
+                                : new WalkCheckpoint(options.checkpointPath, options.checkpointInterval, writer);
+                        if (options.isParallel()) {
+                            walkParallel(reader, writer, options, cache, start, checkpoint);
+                        } else {
+                            walkSequential(reader, writer, options, cache, start, checkpoint);
+                        }
+                        if (checkpoint != null) {
+                            checkpoint.finish();
                         }
                     }
                 } catch (NoSuchFileException ex) {
@@ -84,33 +81,184 @@ public class RecursiveWalk {
                 System.out.println("Exception while writing result in file " + outputFilePath);
                 ex.printStackTrace();
             }
+            if (cache != null) {
+                saveCache(cache, options.cachePath);
+            }
         } catch (ExitException ex) {
             System.err.println(ex.getMessage());
         }
     }
 
+    private static void saveCache(HashCache cache, Path cachePath) {
+        try {
+            cache.save();
+        } catch (IOException e) {
+            System.out.println("Cannot save hash cache " + cachePath + ": " + e.getMessage());
+        }
+        System.out.println(cache.statistics());
+    }
+
+    private static void walkSequential(BufferedReader reader, WalkWriter writer, WalkOptions options,
+                                       HashCache cache, WalkCheckpoint.Position start, WalkCheckpoint checkpoint)
+            throws IOException {
+        HashReader hashReader = options.newHashReader();
+        try (FileTreeWalker treeWalker = options.newTreeWalker()) {
+            walkLines(reader, start, treeWalker, (file, attributes, line, record) -> {
+                try {
+                    writeResult(writer, file.toString(), getHashFile(file, attributes, hashReader, cache));
+                } catch (IOException e) {
+                    System.out.println("Cannot write hash result of file " + file.toString() + ": " + e.getMessage());
+                    return;
+                }
+                if (checkpoint != null) {
+                    checkpoint.recordWritten(line, record);
+                }
+            }, (path, line, record) -> {
+                writeResult(writer, path, options.algorithm.errorHash());
+                if (checkpoint != null) {
+                    checkpoint.recordWritten(line, record);
+                }
+            });
+        }
+    }
+
+    private static void walkParallel(BufferedReader reader, WalkWriter writer, WalkOptions options,
+                                     HashCache cache, WalkCheckpoint.Position start, WalkCheckpoint checkpoint)
+            throws IOException {
+        try (WalkPipeline pipeline = new WalkPipeline(writer, options, cache, checkpoint)) {
+            try (FileTreeWalker treeWalker = options.newTreeWalker()) {
+                walkLines(reader, start, treeWalker, pipeline::submitFile, pipeline::submitError);
+            }
+            pipeline.finish();
+        }
+    }
+
+    private static void findDuplicates(BufferedReader reader, WalkWriter writer, WalkOptions options,
+                                       HashCache cache) throws IOException {
+        DuplicateFinder finder = new DuplicateFinder(options.newHashReader(), cache, options.dedupOffHeap);
+        try (FileTreeWalker treeWalker = options.newTreeWalker()) {
+            walkLines(reader, WalkCheckpoint.Position.START, treeWalker,
+                    (file, attributes, line, record) -> finder.add(file, attributes), (path, line, record) -> {
+                    });
+        }
+        finder.writeDuplicates(writer);
+    }
+
+    private static void walkAndWatch(BufferedReader reader, WalkWriter writer, WalkOptions options,
+                                     HashCache cache) throws IOException {
+        try (WalkWatcher watcher = new WalkWatcher(writer, options.newHashReader(), cache)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                watcher.addRoot(line);
+            }
+            writer.flush();
+            if (cache != null) {
+                saveCache(cache, options.cachePath);
+            }
+            watcher.watch();
+        }
+    }
+
+    private static void walkLines(BufferedReader reader, WalkCheckpoint.Position start, FileTreeWalker treeWalker,
+                                  FileVisitor fileVisitor, ErrorVisitor errorVisitor) throws IOException {
+        String line;
+        for (long lineNumber = 0; (line = reader.readLine()) != null; lineNumber++) {
+            if (lineNumber >= start.line) {
+                walkLine(line, lineNumber, lineNumber == start.line ? start.record : 0, treeWalker, fileVisitor,
+                        errorVisitor);
+            }
+        }
+    }
+
+    private static void walkLine(String line, long lineNumber, long skipRecords, FileTreeWalker treeWalker,
+                                 FileVisitor fileVisitor, ErrorVisitor errorVisitor) throws IOException {
+        Path inputPath;
+        try {
+            inputPath = Paths.get(line);
+        } catch (InvalidPathException ex) {
+            if (skipRecords == 0) {
+                errorVisitor.visit(line, lineNumber, 0);
+            }
+            return;
+        }
+        if (!Files.exists(inputPath)) {
+            if (skipRecords == 0) {
+                errorVisitor.visit(inputPath.toString(), lineNumber, 0);
+            }
+            return;
+        }
+        long[] record = {0};
+        treeWalker.walk(inputPath, (file, attributes) -> {
+            if (record[0] >= skipRecords) {
+                fileVisitor.visit(file, attributes, lineNumber, record[0]);
+            }
+            record[0]++;
+        });
+    }
+
     static String getHashFile(Path inputPath) {
+        return getHashFile(inputPath, DEFAULT_READER.get());
+    }
+
+    static String getHashFile(Path inputPath, HashReader reader) {
         if (Files.isReadable(inputPath)) {
-            try (InputStream bufferedInput = new BufferedInputStream(Files.newInputStream(inputPath))) {
-                byte[] buffer = new byte[2 << 10];
-                int h = 0x811c9dc5;
-                int bufferReadSize;
-                while ((bufferReadSize = bufferedInput.read(buffer)) >= 0) {
-                    for (int i = 0; i < bufferReadSize; i++) {
-                        h = (h * 0x01000193) ^ (buffer[i] & 0xff);
-                    }
-                }
-                return String.format("%08x", h);
+            try {
+                return reader.hash(inputPath);
             } catch (IOException e) {
-                return errorHash;
+                return reader.errorHash();
             }
         } else {
-            return errorHash;
+            return reader.errorHash();
         }
+    }
+
+    static String getHashFile(Path inputPath, HashReader reader, HashCache cache) {
+        return getHashFile(inputPath, null, reader, cache);
+    }
+
+    static String getHashFile(Path inputPath, BasicFileAttributes attributes, HashReader reader, HashCache cache) {
+        if (cache == null) {
+            return getHashFile(inputPath, reader);
+        }
+        if (!Files.isReadable(inputPath)) {
+            return reader.errorHash();
+        }
+        try {
+            return readHash(inputPath, attributes, reader, cache);
+        } catch (IOException e) {
+            return reader.errorHash();
+        }
+    }
+
+    static String readHash(Path inputPath, BasicFileAttributes attributes, HashReader reader, HashCache cache)
+            throws IOException {
+        if (cache == null) {
+            return reader.hash(inputPath);
+        }
+        if (attributes == null) {
+            attributes = Files.readAttributes(inputPath, BasicFileAttributes.class);
+        }
+        String path = inputPath.toAbsolutePath().normalize().toString();
+        String hash = cache.lookup(path, attributes);
+        if (hash == null) {
+            hash = reader.hash(inputPath);
+            cache.store(path, attributes, hash);
+        }
+        return hash;
+    }
+
+    private interface FileVisitor {
+        void visit(Path file, BasicFileAttributes attributes, long line, long record) throws IOException;
+    }
 
+    private interface ErrorVisitor {
+        void visit(String path, long line, long record) throws IOException;
     }
 
-    static void writeResult(BufferedWriter writer, String path, String result) throws IOException {
-        writer.write(result + " " + path + System.lineSeparator());
+    static void writeResult(WalkWriter writer, String path, String result) throws IOException {
+        writer.write(result);
+        writer.write(' ');
+        writer.write(path);
+        writer.endRecord();
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+class StreamTreeWalker implements FileTreeWalker {
+    @Override
+    public void walk(Path root, FileConsumer consumer) throws IOException {
+        Stream<Path> walk;
+        try {
+            walk = Files.walk(root);
+        } catch (IOException e) {
+            System.out.println("Cannot read files in directory " + root.toString() + ": " + e.getMessage());
+            return;
+        }
+        try (walk) {
+            Iterator<Path> files = walk.filter(Files::isRegularFile).iterator();
+            while (files.hasNext()) {
+                consumer.accept(files.next(), null);
+            }
+        } catch (UncheckedIOException e) {
+            System.out.println("Cannot read files in directory " + root.toString() + ": " + e.getMessage());
+        }
+    }
+}
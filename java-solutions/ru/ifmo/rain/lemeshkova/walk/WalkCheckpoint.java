@@ -0,0 +1,90 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Periodically saved progress of a walk: the input line and the number of records of that line
+ * which are already in the output, and the output length covering exactly these records.
+ * The output is forced to the device before the state is saved, and the state file is forced
+ * and replaced atomically, so after a process or system crash the saved state never points past
+ * the durable end of the output.
+ */
+class WalkCheckpoint {
+    static final int DEFAULT_INTERVAL = 100_000;
+
+    private static final int MAGIC = 0x57434b31;
+
+    private final Path file;
+    private final int interval;
+    private final WalkWriter writer;
+    private int unsavedRecords;
+
+    WalkCheckpoint(Path file, int interval, WalkWriter writer) {
+        this.file = file;
+        this.interval = interval;
+        this.writer = writer;
+    }
+
+    static Position load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Unsupported checkpoint format");
+            }
+            return new Position(input.readLong(), input.readLong(), input.readLong());
+        }
+    }
+
+    void recordWritten(long line, long record) throws IOException {
+        if (++unsavedRecords >= interval) {
+            writer.sync();
+            save(new Position(line, record + 1, writer.position()));
+            unsavedRecords = 0;
+        }
+    }
+
+    void finish() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private void save(Position position) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                DataOutputStream output = new DataOutputStream(Channels.newOutputStream(channel));
+                output.writeInt(MAGIC);
+                output.writeLong(position.line);
+                output.writeLong(position.record);
+                output.writeLong(position.outputPosition);
+                output.flush();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static class Position {
+        static final Position START = new Position(0, 0, 0);
+
+        final long line;
+        final long record;
+        final long outputPosition;
+
+        Position(long line, long record, long outputPosition) {
+            this.line = line;
+            this.record = record;
+            this.outputPosition = outputPosition;
+        }
+    }
+}
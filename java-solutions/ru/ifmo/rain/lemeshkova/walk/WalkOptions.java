@@ -0,0 +1,197 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+class WalkOptions {
+    static final String USAGE = "Usage format: \"java RecursiveWalk <input file> <output file> [--threads <count>]"
+            + " [--direct-threshold <bytes>] [--mapped-threshold <bytes>]"
+            + " [--cache <cache file> [--cache-size <entries>]]"
+            + " [--hash fnv32|fnv64|crc32c|xxhash64|sha256] [--watch]"
+            + " [--sync none|close|<records>] [--compress]"
+            + " [--checkpoint <state file> [--checkpoint-every <records>] [--resume]]"
+            + " [--fork-join <parallelism>]"
+            + " [--dedup [--off-heap]]\"";
+
+    int threads = 0;
+    int forkJoinParallelism = 0;
+    long directThreshold = HashReader.DEFAULT_DIRECT_THRESHOLD;
+    long mappedThreshold = HashReader.DEFAULT_MAPPED_THRESHOLD;
+    HashAlgorithm algorithm = HashAlgorithm.FNV32;
+    boolean watch = false;
+    boolean dedup = false;
+    boolean dedupOffHeap = false;
+    WalkWriter.SyncPolicy syncPolicy = WalkWriter.SyncPolicy.NONE;
+    int syncRecords = 0;
+    boolean compress = false;
+    Path checkpointPath = null;
+    int checkpointInterval = WalkCheckpoint.DEFAULT_INTERVAL;
+    boolean resume = false;
+    Path cachePath = null;
+    int cacheSize = HashCache.DEFAULT_MAX_ENTRIES;
+
+    static WalkOptions parse(String[] args, int from) throws ExitException {
+        WalkOptions options = new WalkOptions();
+        for (int i = from; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    options.threads = parsePositive(args, ++i, "thread count");
+                    break;
+                case "--fork-join":
+                    options.forkJoinParallelism = parsePositive(args, ++i, "fork-join parallelism");
+                    break;
+                case "--direct-threshold":
+                    options.directThreshold = parseSize(args, ++i, "direct read threshold");
+                    break;
+                case "--mapped-threshold":
+                    options.mappedThreshold = parseSize(args, ++i, "mapped read threshold");
+                    break;
+                case "--cache":
+                    options.cachePath = parsePath(args, ++i, "cache file");
+                    break;
+                case "--cache-size":
+                    options.cacheSize = parsePositive(args, ++i, "cache size");
+                    break;
+                case "--hash":
+                    options.algorithm = parseAlgorithm(args, ++i);
+                    break;
+                case "--watch":
+                    options.watch = true;
+                    break;
+                case "--sync":
+                    parseSync(options, args, ++i);
+                    break;
+                case "--compress":
+                    options.compress = true;
+                    break;
+                case "--dedup":
+                    options.dedup = true;
+                    break;
+                case "--off-heap":
+                    options.dedupOffHeap = true;
+                    break;
+                case "--checkpoint":
+                    options.checkpointPath = parsePath(args, ++i, "checkpoint file");
+                    break;
+                case "--checkpoint-every":
+                    options.checkpointInterval = parsePositive(args, ++i, "checkpoint interval");
+                    break;
+                case "--resume":
+                    options.resume = true;
+                    break;
+                default:
+                    throw new ExitException("Unknown option " + args[i] + System.lineSeparator() + USAGE);
+            }
+        }
+        if (options.resume && options.checkpointPath == null) {
+            throw new ExitException("--resume requires --checkpoint");
+        }
+        if (options.checkpointPath != null && (options.compress || options.watch || options.dedup)) {
+            throw new ExitException("--checkpoint cannot be combined with --compress, --watch or --dedup");
+        }
+        if (options.watch && options.dedup) {
+            throw new ExitException("--watch cannot be combined with --dedup");
+        }
+        if (options.dedupOffHeap && !options.dedup) {
+            throw new ExitException("--off-heap requires --dedup");
+        }
+        return options;
+    }
+
+    boolean isParallel() {
+        return threads > 0;
+    }
+
+    FileTreeWalker newTreeWalker() {
+        return forkJoinParallelism > 0 ? new ForkJoinTreeWalker(forkJoinParallelism) : new StreamTreeWalker();
+    }
+
+    HashReader newHashReader() {
+        return new HashReader(algorithm, directThreshold, mappedThreshold);
+    }
+
+    WalkWriter openWriter(Path file, WalkCheckpoint.Position start) throws IOException {
+        return new WalkWriter(file, start.outputPosition, syncPolicy, syncRecords, compress,
+                WalkWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    WalkCheckpoint.Position loadCheckpoint() throws ExitException {
+        if (!resume) {
+            return WalkCheckpoint.Position.START;
+        }
+        try {
+            WalkCheckpoint.Position position = WalkCheckpoint.load(checkpointPath);
+            return position == null ? WalkCheckpoint.Position.START : position;
+        } catch (IOException e) {
+            throw new ExitException("Cannot read checkpoint " + checkpointPath + " " + e.getMessage());
+        }
+    }
+
+    private static String getValue(String[] args, int i, String expected) throws ExitException {
+        if (i >= args.length || args[i] == null) {
+            throw new ExitException("Missing value for " + args[i - 1] + ", expected " + expected);
+        }
+        return args[i];
+    }
+
+    private static int parsePositive(String[] args, int i, String expected) throws ExitException {
+        String value = getValue(args, i, expected);
+        try {
+            int result = Integer.parseInt(value);
+            if (result <= 0) {
+                throw new ExitException("Expected positive " + expected + ", found " + result);
+            }
+            return result;
+        } catch (NumberFormatException ex) {
+            throw new ExitException("Expected " + expected + ", found " + value);
+        }
+    }
+
+    private static long parseSize(String[] args, int i, String expected) throws ExitException {
+        String value = getValue(args, i, expected);
+        try {
+            long result = Long.parseLong(value);
+            if (result < 0) {
+                throw new ExitException("Expected non-negative " + expected + ", found " + result);
+            }
+            return result;
+        } catch (NumberFormatException ex) {
+            throw new ExitException("Expected " + expected + ", found " + value);
+        }
+    }
+
+    private static Path parsePath(String[] args, int i, String expected) throws ExitException {
+        String value = getValue(args, i, expected);
+        try {
+            return Paths.get(value);
+        } catch (InvalidPathException ex) {
+            throw new ExitException("Invalid " + expected + " path " + value + " : " + ex.getMessage());
+        }
+    }
+
+    private static HashAlgorithm parseAlgorithm(String[] args, int i) throws ExitException {
+        String value = getValue(args, i, "hash algorithm");
+        HashAlgorithm algorithm = HashAlgorithm.forName(value);
+        if (algorithm == null) {
+            throw new ExitException("Unknown hash algorithm " + value + System.lineSeparator() + USAGE);
+        }
+        return algorithm;
+    }
+
+    private static void parseSync(WalkOptions options, String[] args, int i) throws ExitException {
+        String value = getValue(args, i, "sync policy");
+        switch (value) {
+            case "none":
+                options.syncPolicy = WalkWriter.SyncPolicy.NONE;
+                break;
+            case "close":
+                options.syncPolicy = WalkWriter.SyncPolicy.CLOSE;
+                break;
+            default:
+                options.syncPolicy = WalkWriter.SyncPolicy.EVERY;
+                options.syncRecords = parsePositive(args, i, "sync policy");
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.*;
+
+/*
+ * Three-stage pipeline: the calling thread enumerates files, a fixed pool hashes them
+ * and a single writer thread outputs results in submission order.
+ * The bounded record queue limits the number of outstanding hash tasks.
+ * close() stops both the writer and the pool, so a walk failed with an exception does not keep the JVM alive.
+ */
+class WalkPipeline implements AutoCloseable {
+    private static final int RECORDS_PER_THREAD = 64;
+    private static final Record END = new Record(null, 0, 0, null);
+
+    private final WalkWriter writer;
+    private final ExecutorService hashers;
+    private final ThreadLocal<HashReader> hashReaders;
+    private final HashCache cache;
+    private final WalkCheckpoint checkpoint;
+    private final String errorHash;
+    private final BlockingQueue<Record> records;
+    private final Thread writerThread;
+    private volatile IOException writeException;
+    private volatile boolean closed;
+
+    WalkPipeline(WalkWriter writer, WalkOptions options, HashCache cache, WalkCheckpoint checkpoint) {
+        this.writer = writer;
+        this.cache = cache;
+        this.checkpoint = checkpoint;
+        this.errorHash = options.algorithm.errorHash();
+        this.hashers = Executors.newFixedThreadPool(options.threads);
+        this.hashReaders = ThreadLocal.withInitial(options::newHashReader);
+        this.records = new ArrayBlockingQueue<>(options.threads * RECORDS_PER_THREAD);
+        this.writerThread = new Thread(this::writeRecords, "walk-writer");
+        writerThread.start();
+    }
+
+    void submitFile(Path file, BasicFileAttributes attributes, long line, long record) throws IOException {
+        put(new Record(file.toString(), line, record,
+                hashers.submit(() -> RecursiveWalk.getHashFile(file, attributes, hashReaders.get(), cache))));
+    }
+
+    void submitError(String path, long line, long record) throws IOException {
+        put(new Record(path, line, record, CompletableFuture.completedFuture(errorHash)));
+    }
+
+    void finish() throws IOException {
+        try {
+            records.put(END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            writerThread.interrupt();
+            throw interrupted();
+        } finally {
+            hashers.shutdownNow();
+        }
+        checkWriter();
+    }
+
+    private void put(Record record) throws IOException {
+        checkWriter();
+        try {
+            records.put(record);
+        } catch (InterruptedException e) {
+            record.hash.cancel(true);
+            throw interrupted();
+        }
+    }
+
+    /* Drops records which are not written yet and waits for the writer thread, does nothing after finish */
+    @Override
+    public void close() {
+        closed = true;
+        hashers.shutdownNow().forEach(task -> ((Future<?>) task).cancel(false));
+        records.forEach(record -> record.hash.cancel(true));
+        records.clear();
+        records.offer(END);
+        writerThread.interrupt();
+        boolean interrupted = false;
+        while (writerThread.isAlive()) {
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static InterruptedIOException interrupted() {
+        Thread.currentThread().interrupt();
+        return new InterruptedIOException("Walk was interrupted");
+    }
+
+    private void checkWriter() throws IOException {
+        if (writeException != null) {
+            throw writeException;
+        }
+    }
+
+    private void writeRecords() {
+        try {
+            Record record;
+            while ((record = records.take()) != END) {
+                if (closed || writeException != null) {
+                    record.hash.cancel(true);
+                    continue;
+                }
+                try {
+                    RecursiveWalk.writeResult(writer, record.path, getHash(record, errorHash));
+                    if (checkpoint != null) {
+                        checkpoint.recordWritten(record.line, record.record);
+                    }
+                } catch (IOException e) {
+                    writeException = e;
+                }
+            }
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String getHash(Record record, String errorHash) throws InterruptedException {
+        try {
+            return record.hash.get();
+        } catch (ExecutionException | CancellationException e) {
+            return errorHash;
+        }
+    }
+
+    private static class Record {
+        private final String path;
+        private final long line;
+        private final long record;
+        private final Future<String> hash;
+
+        private Record(String path, long line, long record, Future<String> hash) {
+            this.path = path;
+            this.line = line;
+            this.record = record;
+            this.hash = hash;
+        }
+    }
+}
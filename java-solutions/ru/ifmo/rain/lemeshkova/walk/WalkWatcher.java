@@ -0,0 +1,214 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/*
+ * Keeps hashes of all files under the walked roots and reports changes as delta records
+ * "<added|changed|deleted> <hash> <path>". Directories are registered in a WatchService
+ * before they are hashed, so files created during the initial walk are not lost.
+ */
+class WalkWatcher implements Closeable {
+    private static final String ADDED = "added";
+    private static final String CHANGED = "changed";
+    private static final String DELETED = "deleted";
+
+    private final WalkWriter writer;
+    private final HashReader hashReader;
+    private final HashCache cache;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final NavigableMap<String, String> hashes = new TreeMap<>();
+    private final Map<Path, Path> fileRoots = new HashMap<>();
+    private final List<Path> directoryRoots = new ArrayList<>();
+
+    WalkWatcher(WalkWriter writer, HashReader hashReader, HashCache cache) throws IOException {
+        this.writer = writer;
+        this.hashReader = hashReader;
+        this.cache = cache;
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    void addRoot(String line) throws IOException {
+        Path root;
+        try {
+            root = Paths.get(line);
+        } catch (InvalidPathException ex) {
+            RecursiveWalk.writeResult(writer, line, hashReader.errorHash());
+            return;
+        }
+        if (!Files.exists(root)) {
+            RecursiveWalk.writeResult(writer, root.toString(), hashReader.errorHash());
+            return;
+        }
+        if (Files.isDirectory(root)) {
+            directoryRoots.add(root);
+            scan(root, null);
+        } else {
+            fileRoots.put(root.toAbsolutePath(), root);
+            Path parent = root.toAbsolutePath().getParent();
+            if (parent != null) {
+                register(parent);
+            }
+            if (Files.isRegularFile(root)) {
+                update(root, null);
+            }
+        }
+    }
+
+    void watch() throws IOException {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                Path directory = directories.get(key);
+                if (directory != null) {
+                    processEvents(key, directory);
+                }
+                writer.flush();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void processEvents(WatchKey key, Path directory) throws IOException {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                rescan();
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            Path fileRoot = fileRoots.get(file.toAbsolutePath());
+            if (fileRoot != null) {
+                file = fileRoot;
+            } else if (!isUnderDirectoryRoot(file)) {
+                continue;
+            }
+            if (event.kind() == ENTRY_DELETE) {
+                delete(file);
+            } else if (Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+                if (event.kind() == ENTRY_CREATE) {
+                    scan(file, ADDED);
+                }
+            } else if (Files.isRegularFile(file)) {
+                update(file, ADDED);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+            delete(directory);
+        }
+    }
+
+    private boolean isUnderDirectoryRoot(Path file) {
+        for (Path root : directoryRoots) {
+            if (file.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rescan() throws IOException {
+        for (Path root : directoryRoots) {
+            if (Files.isDirectory(root)) {
+                scan(root, ADDED);
+            } else {
+                delete(root);
+            }
+        }
+        for (Path root : fileRoots.values()) {
+            if (Files.isRegularFile(root)) {
+                update(root, ADDED);
+            } else {
+                delete(root);
+            }
+        }
+    }
+
+    private void scan(Path directory, String kind) throws IOException {
+        Set<String> found = new HashSet<>();
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                register(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (Files.isRegularFile(file)) {
+                    found.add(file.toString());
+                    update(file, kind);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                System.out.println("Cannot read " + file + ": " + exc.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (kind != null) {
+            List<String> removed = new ArrayList<>(subTree(directory.toString()).keySet());
+            removed.removeAll(found);
+            for (String path : removed) {
+                report(DELETED, hashes.remove(path), path);
+            }
+        }
+    }
+
+    private void register(Path directory) throws IOException {
+        directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), directory);
+    }
+
+    private void update(Path file, String kind) throws IOException {
+        String path = file.toString();
+        String hash = RecursiveWalk.getHashFile(file, hashReader, cache);
+        String previous = hashes.put(path, hash);
+        if (kind == null) {
+            RecursiveWalk.writeResult(writer, path, hash);
+        } else if (previous == null) {
+            report(kind, hash, path);
+        } else if (!previous.equals(hash)) {
+            report(CHANGED, hash, path);
+        }
+    }
+
+    private void delete(Path path) throws IOException {
+        String file = path.toString();
+        String hash = hashes.remove(file);
+        if (hash != null) {
+            report(DELETED, hash, file);
+            return;
+        }
+        Map<String, String> deleted = subTree(file);
+        for (Map.Entry<String, String> entry : deleted.entrySet()) {
+            report(DELETED, entry.getValue(), entry.getKey());
+        }
+        deleted.clear();
+    }
+
+    private SortedMap<String, String> subTree(String directory) {
+        String separator = FileSystems.getDefault().getSeparator();
+        String prefix = directory.endsWith(separator) ? directory : directory + separator;
+        return hashes.subMap(prefix, prefix + Character.MAX_VALUE);
+    }
+
+    private void report(String kind, String hash, String path) throws IOException {
+        writer.write(kind);
+        writer.write(' ');
+        RecursiveWalk.writeResult(writer, path, hash);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
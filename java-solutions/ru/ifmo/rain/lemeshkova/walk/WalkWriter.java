@@ -0,0 +1,160 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Output of walk records. Characters are encoded straight into a reusable buffer
+ * which is written to the file channel only when it is full. ASCII text is copied
+ * byte by byte, other text goes through a UTF-8 encoder.
+ */
+class WalkWriter implements Closeable {
+    static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final FileChannel channel;
+    private final GZIPOutputStream compressed;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final SyncPolicy syncPolicy;
+    private final int syncRecords;
+    private int unsyncedRecords;
+
+    WalkWriter(Path file, long position, SyncPolicy syncPolicy, int syncRecords, boolean compress, int bufferSize)
+            throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            if (channel.size() < position) {
+                throw new IOException("Output file is shorter than expected " + position + " bytes");
+            }
+            channel.truncate(position);
+            channel.position(position);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.compressed = compress ? new GZIPOutputStream(Channels.newOutputStream(channel), bufferSize, true) : null;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.syncPolicy = syncPolicy;
+        this.syncRecords = syncRecords;
+    }
+
+    WalkWriter(Path file) throws IOException {
+        this(file, 0, SyncPolicy.NONE, 0, false, DEFAULT_BUFFER_SIZE);
+    }
+
+    void write(String s) throws IOException {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                encode(s, i);
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                writeBuffer();
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    void write(char c) throws IOException {
+        if (c >= 0x80) {
+            encode(String.valueOf(c), 0);
+            return;
+        }
+        if (!buffer.hasRemaining()) {
+            writeBuffer();
+        }
+        buffer.put((byte) c);
+    }
+
+    void endRecord() throws IOException {
+        if (buffer.remaining() < LINE_SEPARATOR.length) {
+            writeBuffer();
+        }
+        buffer.put(LINE_SEPARATOR);
+        if (syncPolicy == SyncPolicy.EVERY && ++unsyncedRecords >= syncRecords) {
+            sync();
+        }
+    }
+
+    void flush() throws IOException {
+        writeBuffer();
+        if (compressed != null) {
+            compressed.flush();
+        }
+    }
+
+    long position() throws IOException {
+        return channel.position() + buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBuffer();
+            if (compressed != null) {
+                compressed.finish();
+                compressed.flush();
+            }
+            if (syncPolicy != SyncPolicy.NONE) {
+                channel.force(true);
+            }
+        } finally {
+            if (compressed != null) {
+                compressed.close();
+            }
+            channel.close();
+        }
+    }
+
+    /* Flushes buffered records and forces them to the storage device */
+    void sync() throws IOException {
+        flush();
+        channel.force(false);
+        unsyncedRecords = 0;
+    }
+
+    private void encode(String s, int from) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(s, from, s.length());
+        encoder.reset();
+        CoderResult result;
+        while ((result = encoder.encode(chars, buffer, true)).isOverflow()) {
+            writeBuffer();
+        }
+        if (result.isError()) {
+            result.throwException();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            writeBuffer();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        if (compressed != null) {
+            compressed.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        buffer.clear();
+    }
+
+    enum SyncPolicy {
+        NONE, CLOSE, EVERY
+    }
+}
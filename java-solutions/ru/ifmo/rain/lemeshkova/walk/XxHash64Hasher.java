@@ -0,0 +1,154 @@
+package ru.ifmo.rain.lemeshkova.walk;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * Streaming xxHash64 with zero seed. Input is consumed in 32-byte stripes read as
+ * little-endian words, an incomplete stripe is kept in the internal buffer until the next update.
+ */
+class XxHash64Hasher implements FileHasher {
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE = 32;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final byte[] stripe = new byte[STRIPE];
+    private int stripeSize;
+    private long totalLength;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    XxHash64Hasher() {
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        v1 = PRIME_1 + PRIME_2;
+        v2 = PRIME_2;
+        v3 = 0;
+        v4 = -PRIME_1;
+        stripeSize = 0;
+        totalLength = 0;
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+        totalLength += length;
+        int end = offset + length;
+        if (stripeSize > 0) {
+            int copied = Math.min(STRIPE - stripeSize, length);
+            System.arraycopy(bytes, offset, stripe, stripeSize, copied);
+            stripeSize += copied;
+            offset += copied;
+            if (stripeSize < STRIPE) {
+                return;
+            }
+            processStripe(stripe, 0);
+            stripeSize = 0;
+        }
+        for (; offset <= end - STRIPE; offset += STRIPE) {
+            processStripe(bytes, offset);
+        }
+        System.arraycopy(bytes, offset, stripe, 0, end - offset);
+        stripeSize = end - offset;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        totalLength += buffer.remaining();
+        if (stripeSize > 0) {
+            int copied = Math.min(STRIPE - stripeSize, buffer.remaining());
+            buffer.get(stripe, stripeSize, copied);
+            stripeSize += copied;
+            if (stripeSize < STRIPE) {
+                return;
+            }
+            processStripe(stripe, 0);
+            stripeSize = 0;
+        }
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.remaining() >= STRIPE) {
+            v1 = round(v1, buffer.getLong());
+            v2 = round(v2, buffer.getLong());
+            v3 = round(v3, buffer.getLong());
+            v4 = round(v4, buffer.getLong());
+        }
+        buffer.order(order);
+        stripeSize = buffer.remaining();
+        buffer.get(stripe, 0, stripeSize);
+    }
+
+    @Override
+    public String digest() {
+        return String.format("%016x", value());
+    }
+
+    long value() {
+        long h;
+        if (totalLength >= STRIPE) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = PRIME_5;
+        }
+        h += totalLength;
+        int i = 0;
+        for (; i + Long.BYTES <= stripeSize; i += Long.BYTES) {
+            h ^= round(0, (long) LONGS.get(stripe, i));
+            h = Long.rotateLeft(h, 27) * PRIME_1 + PRIME_4;
+        }
+        if (i + Integer.BYTES <= stripeSize) {
+            h ^= ((int) INTS.get(stripe, i) & 0xffffffffL) * PRIME_1;
+            h = Long.rotateLeft(h, 23) * PRIME_2 + PRIME_3;
+            i += Integer.BYTES;
+        }
+        for (; i < stripeSize; i++) {
+            h ^= (stripe[i] & 0xff) * PRIME_5;
+            h = Long.rotateLeft(h, 11) * PRIME_1;
+        }
+        h ^= h >>> 33;
+        h *= PRIME_2;
+        h ^= h >>> 29;
+        h *= PRIME_3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private void processStripe(byte[] bytes, int offset) {
+        v1 = round(v1, (long) LONGS.get(bytes, offset));
+        v2 = round(v2, (long) LONGS.get(bytes, offset + 8));
+        v3 = round(v3, (long) LONGS.get(bytes, offset + 16));
+        v4 = round(v4, (long) LONGS.get(bytes, offset + 24));
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME_1;
+    }
+
+    private static long mergeRound(long accumulator, long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME_1 + PRIME_4;
+    }
+}
@@ -0,0 +1,6 @@
+@echo off
+
+SET task=walk
+SET benchmark=WalkBenchmark
+
+CALL _bench %task% %benchmark%
@@ -0,0 +1,6 @@
+@echo off
+
+SET task=arrayset
+SET benchmark=ArraySetSearchBenchmark
+
+CALL _bench %task% %benchmark%
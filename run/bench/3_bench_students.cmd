@@ -0,0 +1,6 @@
+@echo off
+
+SET task=student
+SET benchmark=StudentDBBenchmark
+
+CALL _bench %task% %benchmark%
@@ -0,0 +1,19 @@
+@echo off
+SET task=%1
+SET benchmark=%2
+
+SET package_dir=ru\ifmo\rain\lemeshkova\%task%
+
+SET idea_project=B:\Projects\IdeaProjects\ITMO\4_semester\JavaAdvanced
+SET java_advanced=%idea_project%\java-advanced-2020
+SET jmh_lib=%java_advanced%\lib\jmh
+SET out=%idea_project%\out\benchmarks\%task%
+SET solutions=%idea_project%\java-advanced-2020-solutions
+
+echo Compiling...
+javac -cp "%jmh_lib%\*;%java_advanced%\artifacts\*" -processorpath "%jmh_lib%\*" ^
+ %solutions%\java-solutions\%package_dir%\*.java %solutions%\java-benchmarks\%package_dir%\*.java -d %out%
+
+@echo on
+java -cp "%out%;%jmh_lib%\*;%java_advanced%\artifacts\*" org.openjdk.jmh.Main %benchmark% %3 %4 %5 %6
+@echo off